@@ -0,0 +1,90 @@
+package com.example.libreria.service;
+
+import com.example.libreria.model.Book;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.model.User;
+import com.example.libreria.repository.BookRepository;
+import com.example.libreria.repository.ReservationRepository;
+import com.example.libreria.repository.SyncCheckpointRepository;
+import com.example.libreria.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Entidades armadas en memoria para los benchmarks JMH: sin Spring ni base de datos,
+ * así se mide solo el costo de cada camino.
+ */
+final class BenchmarkFixtures {
+    
+    private BenchmarkFixtures() {
+    }
+    
+    // Servicios con colaboradores de Mockito: los métodos medidos (tarifas y conversiones) no los
+    // usan, y los mocks devuelven valores neutros (ledger desactivado) si alguno llegara a hacerlo
+    static BookService bookService() {
+        return new BookService(mock(BookRepository.class), mock(ExternalBookService.class),
+                mock(BookSyncWriter.class), mock(SyncCheckpointRepository.class), mock(MeterRegistry.class),
+                mock(CacheManager.class), mock(InventoryLedger.class), mock(BookSearchIndex.class),
+                mock(CatalogFacetIndex.class), mock(ReadVersions.class));
+    }
+    
+    static UserService userService() {
+        return new UserService(mock(UserRepository.class), mock(Validator.class), mock(TransactionTemplate.class),
+                mock(ObjectMapper.class), mock(ReadVersions.class));
+    }
+    
+    static ReservationService reservationService() {
+        return new ReservationService(mock(ReservationRepository.class), bookService(), userService(),
+                mock(MeterRegistry.class), mock(Validator.class), mock(ReportService.class), mock(ReadVersions.class));
+    }
+    
+    static Book book(long externalId) {
+        Book book = new Book();
+        book.setExternalId(externalId);
+        book.setTitle("The Lord of the Rings " + externalId);
+        book.setAuthorName(List.of("J. R. R. Tolkien", "Christopher Tolkien"));
+        book.setFirstPublishYear(1954);
+        book.setEditionCount(120);
+        book.setHasFulltext(true);
+        book.setPrice(new BigDecimal("15.99"));
+        book.setStockQuantity(10);
+        book.setAvailableQuantity(8);
+        return book;
+    }
+    
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("Juan Pérez");
+        user.setEmail("juan.perez" + id + "@example.com");
+        user.setPhoneNumber("123456789");
+        user.setCreatedAt(LocalDateTime.of(2025, 11, 1, 10, 0));
+        return user;
+    }
+    
+    static Reservation reservation(long id, User user, Book book) {
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setUser(user);
+        reservation.setBook(book);
+        reservation.setRentalDays(7);
+        reservation.setStartDate(LocalDate.of(2025, 11, 13));
+        reservation.setExpectedReturnDate(LocalDate.of(2025, 11, 20));
+        reservation.setDailyRate(book.getPrice());
+        reservation.setTotalFee(new BigDecimal("111.93"));
+        reservation.setLateFee(BigDecimal.ZERO);
+        reservation.setStatus(Reservation.ReservationStatus.ACTIVE);
+        reservation.setCreatedAt(LocalDateTime.of(2025, 11, 13, 9, 30));
+        return reservation;
+    }
+}
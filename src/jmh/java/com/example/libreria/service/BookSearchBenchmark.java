@@ -0,0 +1,110 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.BookSearchResultDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsquedas sobre {@link BookSearchIndex} con un catálogo sintético: títulos de 2 a 6 palabras
+ * de un vocabulario de 20.000 y 5.000 autores, generados con semilla fija. Cada búsqueda usa
+ * palabras de un título real del catálogo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookSearchBenchmark {
+    
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "sa", "te", "vi", "zor", "bel",
+            "dan", "fis", "gor", "hal", "jen", "mar", "pol", "quin", "ros", "tur"};
+    
+    @Param({"100000"})
+    private int books;
+    
+    private BookSearchIndex index;
+    private String word;
+    private String twoWords;
+    private String prefix;
+    private String typo;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[20_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = word(random, 2 + random.nextInt(3));
+        }
+        String[] authors = new String[5_000];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = capitalize(word(random, 2)) + " " + capitalize(word(random, 3));
+        }
+        
+        index = new BookSearchIndex(null);
+        String sample = null;
+        for (long id = 1; id <= books; id++) {
+            List<String> words = new ArrayList<>();
+            int length = 2 + random.nextInt(5);
+            for (int w = 0; w < length; w++) {
+                // Distribución sesgada: pocas palabras muy frecuentes y una cola larga
+                double skew = random.nextDouble();
+                words.add(vocabulary[(int) (skew * skew * skew * vocabulary.length)]);
+            }
+            String title = capitalize(String.join(" ", words));
+            index.index(id, title, List.of(authors[random.nextInt(authors.length)]));
+            if (id == books / 2) {
+                sample = title.toLowerCase();
+            }
+        }
+        String[] sampleWords = sample.split(" ");
+        word = sampleWords[sampleWords.length - 1];
+        twoWords = sampleWords[0] + " " + sampleWords[1];
+        prefix = sampleWords[1].substring(0, 3);
+        String longest = sampleWords[0].length() >= sampleWords[1].length() ? sampleWords[0] : sampleWords[1];
+        // Transposición de dos letras del medio
+        int middle = longest.length() / 2;
+        typo = longest.substring(0, middle - 1) + longest.charAt(middle) + longest.charAt(middle - 1)
+                + longest.substring(middle + 1);
+    }
+    
+    @Benchmark
+    public List<BookSearchResultDTO> singleWord() {
+        return index.search(word, 20);
+    }
+    
+    @Benchmark
+    public List<BookSearchResultDTO> twoWords() {
+        return index.search(twoWords, 20);
+    }
+    
+    @Benchmark
+    public List<BookSearchResultDTO> prefix() {
+        return index.search(prefix, 20);
+    }
+    
+    @Benchmark
+    public List<BookSearchResultDTO> typo() {
+        return index.search(typo, 20);
+    }
+    
+    private static String word(Random random, int syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int s = 0; s < syllables; s++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+    
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
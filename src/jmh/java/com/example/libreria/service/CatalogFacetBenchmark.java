@@ -0,0 +1,76 @@
+package com.example.libreria.service;
+
+import com.example.libreria.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtros y conteos de facetas sobre {@link CatalogFacetIndex} con un catálogo sintético (años
+ * 1800-2024, precios de 5 a 80, ediciones de 1 a 400, un 20% sin disponibilidad), generado con
+ * semilla fija. Cada consulta devuelve una página de 50 libros y los conteos de todas las facetas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogFacetBenchmark {
+    
+    private static final CatalogFacetIndex.Filter NO_FILTER =
+            new CatalogFacetIndex.Filter(null, null, null, null, null, null);
+    // Rango de años que no coincide con décadas completas, dos rangos de precio y disponibles
+    private static final CatalogFacetIndex.Filter COMBINED =
+            new CatalogFacetIndex.Filter(1955, 1994, true, Set.of("10-20", "20-30"), null, true);
+    private static final CatalogFacetIndex.Filter NARROW =
+            new CatalogFacetIndex.Filter(2001, 2003, false, Set.of("50+"), Set.of("251+"), true);
+    
+    @Param({"100000"})
+    private int books;
+    
+    private CatalogFacetIndex index;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new CatalogFacetIndex(null);
+        List<Book> batch = new ArrayList<>();
+        for (long id = 1; id <= books; id++) {
+            Book book = new Book();
+            book.setExternalId(id);
+            book.setFirstPublishYear(1800 + random.nextInt(225));
+            book.setHasFulltext(random.nextBoolean());
+            book.setPrice(BigDecimal.valueOf(500 + random.nextInt(7500), 2));
+            book.setEditionCount(1 + random.nextInt(400));
+            book.setStockQuantity(10);
+            book.setAvailableQuantity(random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(10));
+            batch.add(book);
+        }
+        index.indexAfterCommit(batch);
+    }
+    
+    @Benchmark
+    public CatalogFacetIndex.Result noFilter() {
+        return index.query(NO_FILTER, null, 51);
+    }
+    
+    @Benchmark
+    public CatalogFacetIndex.Result combined() {
+        return index.query(COMBINED, null, 51);
+    }
+    
+    @Benchmark
+    public CatalogFacetIndex.Result narrow() {
+        return index.query(NARROW, null, 51);
+    }
+}
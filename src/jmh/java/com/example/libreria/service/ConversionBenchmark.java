@@ -0,0 +1,94 @@
+package com.example.libreria.service;
+
+import com.example.libreria.config.MappersConfig;
+import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.dto.UserResponseDTO;
+import com.example.libreria.model.Book;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.model.User;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de tarifas y conversiones entidad → DTO de los servicios, más el mapeo
+ * equivalente con el ModelMapper de {@link MappersConfig}. Con -prof gc reporta
+ * gc.alloc.rate.norm (bytes por operación).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConversionBenchmark {
+    
+    private ReservationService reservationService;
+    private BookService bookService;
+    private UserService userService;
+    private ModelMapper modelMapper;
+    
+    private Book book;
+    private User user;
+    private Reservation reservation;
+    private BigDecimal dailyRate;
+    
+    @Setup
+    public void setUp() {
+        reservationService = BenchmarkFixtures.reservationService();
+        bookService = BenchmarkFixtures.bookService();
+        userService = BenchmarkFixtures.userService();
+        modelMapper = new MappersConfig().modelMapper();
+        
+        book = BenchmarkFixtures.book(258027L);
+        user = BenchmarkFixtures.user(1L);
+        reservation = BenchmarkFixtures.reservation(1L, user, book);
+        dailyRate = book.getPrice();
+    }
+    
+    @Benchmark
+    public BigDecimal calculateTotalFee() {
+        return reservationService.calculateTotalFee(dailyRate, 7);
+    }
+    
+    @Benchmark
+    public BigDecimal calculateLateFee() {
+        return reservationService.calculateLateFee(dailyRate, 3);
+    }
+    
+    @Benchmark
+    public BookResponseDTO bookConvertToDTO() {
+        return bookService.convertToDTO(book);
+    }
+    
+    @Benchmark
+    public UserResponseDTO userConvertToDTO() {
+        return userService.convertToDTO(user);
+    }
+    
+    @Benchmark
+    public ReservationResponseDTO reservationConvertToDTO() {
+        return reservationService.convertToDTO(reservation);
+    }
+    
+    @Benchmark
+    public BookResponseDTO bookModelMapper() {
+        return modelMapper.map(book, BookResponseDTO.class);
+    }
+    
+    @Benchmark
+    public UserResponseDTO userModelMapper() {
+        return modelMapper.map(user, UserResponseDTO.class);
+    }
+    
+    @Benchmark
+    public ReservationResponseDTO reservationModelMapper() {
+        return modelMapper.map(reservation, ReservationResponseDTO.class);
+    }
+}
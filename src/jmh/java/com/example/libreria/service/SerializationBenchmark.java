@@ -0,0 +1,68 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.model.Book;
+import com.example.libreria.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de páginas de libros y reservas con un ObjectMapper configurado
+ * como el de Spring Boot (fechas ISO-8601). El tamaño va del default de la paginación
+ * al máximo permitido.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+    
+    @Param({"50", "500"})
+    private int pageSize;
+    
+    private ObjectMapper objectMapper;
+    private List<BookResponseDTO> books;
+    private List<ReservationResponseDTO> reservations;
+    
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        
+        BookService bookService = BenchmarkFixtures.bookService();
+        ReservationService reservationService = BenchmarkFixtures.reservationService();
+        User user = BenchmarkFixtures.user(1L);
+        books = new ArrayList<>(pageSize);
+        reservations = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Book book = BenchmarkFixtures.book(100_000L + i);
+            books.add(bookService.convertToDTO(book));
+            reservations.add(reservationService.convertToDTO(BenchmarkFixtures.reservation(i + 1L, user, book)));
+        }
+    }
+    
+    @Benchmark
+    public byte[] serializeBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+    
+    @Benchmark
+    public byte[] serializeReservations() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(reservations);
+    }
+}
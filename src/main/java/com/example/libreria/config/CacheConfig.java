@@ -0,0 +1,34 @@
+package com.example.libreria.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS_CACHE = "books";
+
+    @Value("${cache.books.spec:maximumSize=10000,expireAfterWrite=10m}")
+    private String booksSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        // recordStats alimenta las métricas cache.gets{result=hit|miss} de actuator
+        caffeineCacheManager.setCaffeine(Caffeine.from(booksSpec).recordStats());
+        caffeineCacheManager.setCacheNames(List.of(BOOKS_CACHE));
+        caffeineCacheManager.setAllowNullValues(false);
+        // Las invalidaciones se aplican recién después del commit: una lectura concurrente
+        // no puede volver a cachear el valor anterior mientras la escritura sigue abierta
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.libreria.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource JDBC para JPA (escrituras y API MVC). Spring Boot deja de crearlo solo en cuanto
+ * existe un ConnectionFactory de R2DBC, así que se declara explícitamente con las mismas
+ * propiedades spring.datasource.* y spring.datasource.hikari.*.
+ */
+@Configuration
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Con R2DBC presente Spring Boot ejecutaría data.sql por R2DBC, antes de que Hibernate cree
+    // las tablas. Se ejecuta por JDBC, después del esquema (defer-datasource-initialization).
+    @Bean
+    public SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(
+            DataSource dataSource, SqlInitializationProperties sqlInitializationProperties) {
+        return new SqlDataSourceScriptDatabaseInitializer(dataSource, sqlInitializationProperties);
+    }
+}
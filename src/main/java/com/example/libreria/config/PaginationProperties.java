@@ -0,0 +1,21 @@
+package com.example.libreria.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "api.pagination")
+@Data
+public class PaginationProperties {
+    
+    private int defaultSize = 50;
+    private int maxSize = 500;
+    
+    public int resolve(Integer requestedSize) {
+        if (requestedSize == null || requestedSize <= 0) {
+            return defaultSize;
+        }
+        return Math.min(requestedSize, maxSize);
+    }
+}
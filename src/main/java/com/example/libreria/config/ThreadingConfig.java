@@ -0,0 +1,29 @@
+package com.example.libreria.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+@Configuration
+@Slf4j
+public class ThreadingConfig {
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+    
+    // Spring Boot solo activa los hilos virtuales desde Java 21; en versiones anteriores
+    // la propiedad se ignora sin aviso, así que se deja constancia del modo real
+    @EventListener(ApplicationReadyEvent.class)
+    public void logThreadingMode() {
+        int javaVersion = Runtime.version().feature();
+        if (virtualThreadsRequested && javaVersion < 21) {
+            log.warn("spring.threads.virtual.enabled=true requires Java 21+ (running on Java {}); using platform threads",
+                    javaVersion);
+        } else {
+            log.info("Request handling on {} threads (Java {})",
+                    virtualThreadsRequested ? "virtual" : "platform", javaVersion);
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package com.example.libreria.controller;
 
+import com.example.libreria.config.PaginationProperties;
+import com.example.libreria.dto.BookFacetsDTO;
 import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.BookSearchResultDTO;
+import com.example.libreria.dto.CursorPageDTO;
+import com.example.libreria.dto.SyncResultDTO;
 import com.example.libreria.service.BookService;
+import com.example.libreria.service.CatalogFacetIndex;
+import com.example.libreria.service.ReadVersions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/books")
@@ -14,23 +25,69 @@ import java.util.List;
 public class BookController {
     
     private final BookService bookService;
+    private final PaginationProperties paginationProperties;
+    private final ReadVersions readVersions;
     
     @PostMapping("/sync")
-    public ResponseEntity<String> syncBooks() {
-        bookService.syncBooksFromExternalApi();
-        return ResponseEntity.ok("Libros sincronizados exitosamente desde la API externa");
+    public ResponseEntity<SyncResultDTO> syncBooks() {
+        SyncResultDTO result = bookService.syncBooksFromExternalApi();
+        return ResponseEntity.ok(result);
     }
     
+    @PostMapping("/sync/stream")
+    public ResponseEntity<SyncResultDTO> syncBooksStreaming() {
+        SyncResultDTO result = bookService.syncBooksStreaming();
+        return ResponseEntity.ok(result);
+    }
+    
+    // GET condicional: la versión se lee antes de consultar y, si coincide con If-None-Match
+    // (o If-Modified-Since), responde 304 sin tocar la base ni serializar la página
     @GetMapping
-    public ResponseEntity<List<BookResponseDTO>> getAllBooks() {
-        List<BookResponseDTO> books = bookService.getAllBooks();
+    public ResponseEntity<CursorPageDTO<BookResponseDTO>> getAllBooks(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        ReadVersions.Stamp version = readVersions.catalog();
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        CursorPageDTO<BookResponseDTO> books = bookService.getAllBooks(after, paginationProperties.resolve(size));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(books);
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<List<BookSearchResultDTO>> searchBooks(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer size) {
+        List<BookSearchResultDTO> books = bookService.searchBooks(q, paginationProperties.resolve(size));
+        return ResponseEntity.ok(books);
+    }
+    
+    // Los rangos de precio y de ediciones se pueden repetir: ?price=10-20&price=20-30
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacetsDTO> filterBooks(
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) Boolean hasFulltext,
+            @RequestParam(required = false) Set<String> price,
+            @RequestParam(required = false) Set<String> editionCount,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        CatalogFacetIndex.Filter filter = new CatalogFacetIndex.Filter(
+                yearFrom, yearTo, hasFulltext, price, editionCount, available);
+        BookFacetsDTO books = bookService.filterBooks(filter, after, paginationProperties.resolve(size));
         return ResponseEntity.ok(books);
     }
     
     @GetMapping("/{externalId}")
-    public ResponseEntity<BookResponseDTO> getBookByExternalId(@PathVariable Long externalId) {
+    public ResponseEntity<BookResponseDTO> getBookByExternalId(@PathVariable Long externalId, WebRequest request) {
+        ReadVersions.Stamp version = readVersions.book(externalId);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         BookResponseDTO book = bookService.getBookByExternalId(externalId);
-        return ResponseEntity.ok(book);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(book);
     }
     
     @PutMapping("/{externalId}/stock")
@@ -0,0 +1,60 @@
+package com.example.libreria.controller;
+
+import com.example.libreria.model.Reservation;
+import com.example.libreria.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+// Las respuestas se escriben fuera del hilo del request (StreamingResponseBody), dentro de la
+// transacción de solo lectura de ExportService; los parámetros se validan antes de empezar a escribir
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+    
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    
+    private final ExportService exportService;
+    
+    @GetMapping("/reservations")
+    public ResponseEntity<StreamingResponseBody> exportReservations(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Reservation.ReservationStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        return response("reservations", exportFormat,
+                out -> exportService.exportReservations(exportFormat, status, from, to, out));
+    }
+    
+    @GetMapping("/books")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        return response("books", exportFormat, out -> exportService.exportBooks(exportFormat, out));
+    }
+    
+    private static ResponseEntity<StreamingResponseBody> response(String name, ExportService.Format format,
+                                                                  StreamingResponseBody body) {
+        boolean csv = format == ExportService.Format.CSV;
+        String filename = name + (csv ? ".csv" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.libreria.controller;
+
+import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.dto.UserResponseDTO;
+import com.example.libreria.service.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Listados en NDJSON (un objeto por línea) que Spring MVC escribe a medida que el Flux emite,
+// sin armar el listado completo en memoria. Sigue siendo Spring MVC sobre Tomcat: cada elemento se
+// escribe con I/O bloqueante del servlet en el executor de tareas de MVC, y r2dbc-h2 también bloquea
+// por debajo de su API de Publisher, así que un cliente lento ocupa un hilo por cada escritura.
+// Con Accept: application/json se devuelve un arreglo JSON armado al final.
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+public class ReactiveReadController {
+
+    private final ReactiveReadService reactiveReadService;
+
+    @GetMapping(value = "/books", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<BookResponseDTO> streamBooks(@RequestParam(required = false) Long after) {
+        return reactiveReadService.streamBooks(after);
+    }
+
+    @GetMapping("/books/{externalId}")
+    public Mono<BookResponseDTO> getBookByExternalId(@PathVariable Long externalId) {
+        return reactiveReadService.getBookByExternalId(externalId);
+    }
+
+    @GetMapping(value = "/users", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<UserResponseDTO> streamUsers(@RequestParam(required = false) Long after) {
+        return reactiveReadService.streamUsers(after);
+    }
+
+    @GetMapping("/users/{id}")
+    public Mono<UserResponseDTO> getUserById(@PathVariable Long id) {
+        return reactiveReadService.getUserById(id);
+    }
+
+    @GetMapping(value = "/reservations", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ReservationResponseDTO> streamReservations(@RequestParam(required = false) Long after) {
+        return reactiveReadService.streamReservations(after);
+    }
+
+    @GetMapping("/reservations/{id}")
+    public Mono<ReservationResponseDTO> getReservationById(@PathVariable Long id) {
+        return reactiveReadService.getReservationById(id);
+    }
+
+    @GetMapping(value = "/reservations/user/{userId}",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ReservationResponseDTO> streamReservationsByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long after) {
+        return reactiveReadService.streamReservationsByUserId(userId, after);
+    }
+
+    @GetMapping(value = "/reservations/active",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ReservationResponseDTO> streamActiveReservations(@RequestParam(required = false) Long after) {
+        return reactiveReadService.streamActiveReservations(after);
+    }
+
+    @GetMapping(value = "/reservations/overdue",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ReservationResponseDTO> streamOverdueReservations(@RequestParam(required = false) Long after) {
+        return reactiveReadService.streamOverdueReservations(after);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.libreria.controller;
+
+import com.example.libreria.dto.ReportDTO;
+import com.example.libreria.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+    
+    private final ReportService reportService;
+    
+    @GetMapping("/revenue")
+    public ResponseEntity<ReportDTO> getRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String groupBy) {
+        ReportDTO report = reportService.getRevenue(from, to, ReportService.GroupBy.of(groupBy));
+        return ResponseEntity.ok(report);
+    }
+    
+    @GetMapping("/late-fees")
+    public ResponseEntity<ReportDTO> getLateFees(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String groupBy) {
+        ReportDTO report = reportService.getLateFees(from, to, ReportService.GroupBy.of(groupBy));
+        return ResponseEntity.ok(report);
+    }
+}
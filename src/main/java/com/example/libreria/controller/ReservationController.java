@@ -1,14 +1,21 @@
 package com.example.libreria.controller;
 
+import com.example.libreria.config.PaginationProperties;
+import com.example.libreria.dto.BatchResultDTO;
+import com.example.libreria.dto.CursorPageDTO;
 import com.example.libreria.dto.ReservationRequestDTO;
 import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.dto.ReservationReturnDTO;
 import com.example.libreria.dto.ReturnBookRequestDTO;
+import com.example.libreria.service.ReadVersions;
 import com.example.libreria.service.ReservationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,6 +25,8 @@ import java.util.List;
 public class ReservationController {
     
     private final ReservationService reservationService;
+    private final PaginationProperties paginationProperties;
+    private final ReadVersions readVersions;
     
     @PostMapping
     public ResponseEntity<ReservationResponseDTO> createReservation(
@@ -26,6 +35,14 @@ public class ReservationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
     }
     
+    // Respuesta 200 con el resultado de cada reserva del lote, aunque algunas fallen
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResultDTO<ReservationResponseDTO>> createReservations(
+            @RequestBody List<ReservationRequestDTO> requests) {
+        BatchResultDTO<ReservationResponseDTO> result = reservationService.createReservations(requests);
+        return ResponseEntity.ok(result);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ReservationResponseDTO> getReservationById(@PathVariable Long id) {
         ReservationResponseDTO reservation = reservationService.getReservationById(id);
@@ -33,26 +50,45 @@ public class ReservationController {
     }
     
     @GetMapping
-    public ResponseEntity<List<ReservationResponseDTO>> getAllReservations() {
-        List<ReservationResponseDTO> reservations = reservationService.getAllReservations();
+    public ResponseEntity<CursorPageDTO<ReservationResponseDTO>> getAllReservations(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        CursorPageDTO<ReservationResponseDTO> reservations =
+                reservationService.getAllReservations(after, paginationProperties.resolve(size));
         return ResponseEntity.ok(reservations);
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<ReservationResponseDTO>> getReservationsByUserId(@PathVariable Long userId) {
-        List<ReservationResponseDTO> reservations = reservationService.getReservationsByUserId(userId);
-        return ResponseEntity.ok(reservations);
+    public ResponseEntity<CursorPageDTO<ReservationResponseDTO>> getReservationsByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        // GET condicional como en /api/books: 304 sin consultar si las reservas del usuario no cambiaron
+        ReadVersions.Stamp version = readVersions.reservations(userId);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        CursorPageDTO<ReservationResponseDTO> reservations =
+                reservationService.getReservationsByUserId(userId, after, paginationProperties.resolve(size));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(reservations);
     }
     
     @GetMapping("/active")
-    public ResponseEntity<List<ReservationResponseDTO>> getActiveReservations() {
-        List<ReservationResponseDTO> reservations = reservationService.getActiveReservations();
+    public ResponseEntity<CursorPageDTO<ReservationResponseDTO>> getActiveReservations(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        CursorPageDTO<ReservationResponseDTO> reservations =
+                reservationService.getActiveReservations(after, paginationProperties.resolve(size));
         return ResponseEntity.ok(reservations);
     }
     
     @GetMapping("/overdue")
-    public ResponseEntity<List<ReservationResponseDTO>> getOverdueReservations() {
-        List<ReservationResponseDTO> reservations = reservationService.getOverdueReservations();
+    public ResponseEntity<CursorPageDTO<ReservationResponseDTO>> getOverdueReservations(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        CursorPageDTO<ReservationResponseDTO> reservations =
+                reservationService.getOverdueReservations(after, paginationProperties.resolve(size));
         return ResponseEntity.ok(reservations);
     }
     
@@ -63,5 +99,12 @@ public class ReservationController {
         ReservationResponseDTO reservation = reservationService.returnBook(id, returnRequest);
         return ResponseEntity.ok(reservation);
     }
+    
+    @PostMapping("/returns")
+    public ResponseEntity<BatchResultDTO<ReservationResponseDTO>> returnBooks(
+            @RequestBody List<ReservationReturnDTO> returns) {
+        BatchResultDTO<ReservationResponseDTO> result = reservationService.returnBooks(returns);
+        return ResponseEntity.ok(result);
+    }
 }
 
@@ -1,14 +1,19 @@
 package com.example.libreria.controller;
 
+import com.example.libreria.config.PaginationProperties;
+import com.example.libreria.dto.BatchResultDTO;
+import com.example.libreria.dto.CursorPageDTO;
 import com.example.libreria.dto.UserRequestDTO;
 import com.example.libreria.dto.UserResponseDTO;
 import com.example.libreria.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -17,6 +22,7 @@ import java.util.List;
 public class UserController {
     
     private final UserService userService;
+    private final PaginationProperties paginationProperties;
     
     @PostMapping
     public ResponseEntity<UserResponseDTO> createUser(@Valid @RequestBody UserRequestDTO requestDTO) {
@@ -24,6 +30,18 @@ public class UserController {
         return ResponseEntity.ok(userService.createUser(requestDTO));
     }
     
+    // Respuesta 200 con el resultado de cada usuario del lote, aunque algunos fallen
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchResultDTO<UserResponseDTO>> createUsers(@RequestBody List<UserRequestDTO> requests) {
+        return ResponseEntity.ok(userService.createUsers(requests));
+    }
+    
+    // NDJSON: un usuario por línea, leído a medida que llega
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<BatchResultDTO<UserResponseDTO>> importUsers(InputStream body) {
+        return ResponseEntity.ok(userService.importUsers(body));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<UserResponseDTO> getUserById(@PathVariable Long id) {
         // TODO: Implementar la obtención de un usuario por su ID
@@ -31,9 +49,11 @@ public class UserController {
     }
     
     @GetMapping
-    public ResponseEntity<List<UserResponseDTO>> getAllUsers() {
+    public ResponseEntity<CursorPageDTO<UserResponseDTO>> getAllUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
         //TODO: Implementar la obtención de todos los usuarios
-        return ResponseEntity.ok(userService.getAllUsers());
+        return ResponseEntity.ok(userService.getAllUsers(after, paginationProperties.resolve(size)));
     }
     
     @PutMapping("/{id}")
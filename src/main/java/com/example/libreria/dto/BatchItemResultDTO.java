@@ -0,0 +1,25 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDTO<T> {
+
+    // Posición del elemento en el lote recibido
+    private int index;
+    private boolean success;
+    private T result;
+    private String error;
+
+    public static <T> BatchItemResultDTO<T> success(int index, T result) {
+        return new BatchItemResultDTO<>(index, true, result, null);
+    }
+
+    public static <T> BatchItemResultDTO<T> failure(int index, String error) {
+        return new BatchItemResultDTO<>(index, false, null, error);
+    }
+}
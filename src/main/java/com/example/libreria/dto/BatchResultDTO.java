@@ -0,0 +1,23 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDTO<T> {
+
+    private int succeeded;
+    private int failed;
+    // Un resultado por elemento del lote, en el mismo orden
+    private List<BatchItemResultDTO<T>> items;
+
+    public static <T> BatchResultDTO<T> of(List<BatchItemResultDTO<T>> items) {
+        int succeeded = (int) items.stream().filter(BatchItemResultDTO::isSuccess).count();
+        return new BatchResultDTO<>(succeeded, items.size() - succeeded, items);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacetsDTO {
+    
+    // Libros que cumplen todos los filtros
+    private long total;
+    private List<BookResponseDTO> items;
+    // Valor para pasar como ?after= en la próxima página; null si no hay más resultados
+    private Long next;
+    // Faceta → valor → libros; cada faceta se cuenta con todos los filtros salvo el suyo
+    private Map<String, Map<String, Long>> facets;
+}
@@ -0,0 +1,19 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resultado de la búsqueda: solo los campos indexados. La disponibilidad se consulta en /api/books/{externalId}
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSearchResultDTO {
+    
+    private Long externalId;
+    private String title;
+    private List<String> authorName;
+    private double score;
+}
@@ -0,0 +1,30 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    
+    private List<T> items;
+    // Valor para pasar como ?after= en la próxima página; null si no hay más resultados
+    private Long next;
+    
+    /**
+     * Arma la página a partir de filas consultadas con un límite de size + 1:
+     * la fila extra solo indica que existe una página siguiente.
+     */
+    public static <T> CursorPageDTO<T> of(List<T> rows, int size, Function<T, Long> cursor) {
+        if (rows.size() <= size) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPageDTO<>(items, cursor.apply(items.get(size - 1)));
+    }
+}
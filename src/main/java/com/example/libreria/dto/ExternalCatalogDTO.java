@@ -0,0 +1,18 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExternalCatalogDTO {
+    
+    private List<ExternalBookDTO> books;
+    private boolean notModified;
+    private String etag;
+    private String lastModified;
+}
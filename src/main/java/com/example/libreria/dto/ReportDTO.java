@@ -0,0 +1,23 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportDTO {
+    
+    private LocalDate from;
+    private LocalDate to;
+    private String groupBy;
+    // Totales del rango completo
+    private long count;
+    private BigDecimal total;
+    private List<ReportRowDTO> rows;
+}
@@ -0,0 +1,20 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportRowDTO {
+    
+    // Fecha (yyyy-MM-dd), externalId del libro o ID del usuario, según la agrupación
+    private String key;
+    // Título del libro o nombre del usuario; null al agrupar por día
+    private String label;
+    private long count;
+    private BigDecimal amount;
+}
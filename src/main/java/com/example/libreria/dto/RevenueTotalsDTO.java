@@ -0,0 +1,22 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Fila agregada de daily_revenue para una clave del reporte (día, libro o usuario)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueTotalsDTO {
+    
+    private String key;
+    private String label;
+    private Long reservations;
+    private BigDecimal revenue;
+    private Long returns;
+    private Long lateReturns;
+    private BigDecimal lateFees;
+}
@@ -0,0 +1,23 @@
+package com.example.libreria.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResultDTO {
+    
+    private int created;
+    private int updated;
+    private int unchanged;
+    // true cuando la API externa respondió 304 y no hubo nada que escribir
+    private boolean notModified;
+    
+    public void add(SyncResultDTO other) {
+        this.created += other.getCreated();
+        this.updated += other.getUpdated();
+        this.unchanged += other.getUnchanged();
+    }
+}
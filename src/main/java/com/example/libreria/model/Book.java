@@ -1,19 +1,30 @@
 package com.example.libreria.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.util.List;
 
+// El UPDATE incluye solo las columnas modificadas: la sincronización cambia los datos del catálogo
+// sin reescribir stock_quantity ni available_quantity, que se actualizan con UPDATE condicionales
+// y pueden haber cambiado desde que se leyó el libro
 @Entity
 @Table(name = "books")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Book {
+public class Book implements Persistable<Long> {
     
     @Id
     @Column(name = "external_id", unique = true)
@@ -45,5 +56,38 @@ public class Book {
     
     @Column(name = "available_quantity", nullable = false)
     private Integer availableQuantity = 0;
+    
+    // Huella SHA-256 de los campos que vienen de la API externa, para detectar cambios al sincronizar
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    // El ID es asignado (externalId), por eso save() haría un merge con SELECT previo.
+    // La sincronización marca los libros nuevos para que se inserten directamente en lote.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newEntity;
+    
+    @Override
+    public Long getId() {
+        return externalId;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+    
+    public void markNew() {
+        this.newEntity = true;
+    }
+    
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        this.newEntity = false;
+    }
 }
 
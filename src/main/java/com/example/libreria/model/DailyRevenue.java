@@ -0,0 +1,43 @@
+package com.example.libreria.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales diarios por libro y usuario, actualizados en la misma transacción que crea o devuelve
+ * cada reserva. Los reportes agregan sobre esta tabla en lugar de recorrer reservations.
+ */
+@Entity
+@Table(name = "daily_revenue", indexes = {
+        @Index(name = "idx_daily_revenue_book", columnList = "book_external_id, revenue_date"),
+        @Index(name = "idx_daily_revenue_user", columnList = "user_id, revenue_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRevenue {
+    
+    @EmbeddedId
+    private DailyRevenueId id;
+    
+    // Reservas que empiezan ese día y suma de su tarifa base
+    @Column(name = "reservations", nullable = false)
+    private int reservations;
+    
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+    
+    // Devoluciones de ese día; las tardías y la suma de sus multas
+    @Column(name = "returns", nullable = false)
+    private int returns;
+    
+    @Column(name = "late_returns", nullable = false)
+    private int lateReturns;
+    
+    @Column(name = "late_fees", nullable = false, precision = 14, scale = 2)
+    private BigDecimal lateFees = BigDecimal.ZERO;
+}
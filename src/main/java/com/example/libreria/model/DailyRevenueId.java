@@ -0,0 +1,28 @@
+package com.example.libreria.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRevenueId implements Serializable {
+    
+    // Fecha del hecho: inicio para las reservas, devolución para las devoluciones
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate;
+    
+    @Column(name = "book_external_id", nullable = false)
+    private Long bookExternalId;
+    
+    // Sin clave foránea: los totales se conservan aunque se elimine el usuario
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+}
@@ -10,14 +10,22 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = {
+        // Sostienen la paginación por cursor de /user/{userId}, /active y /overdue
+        @Index(name = "idx_reservations_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_reservations_status_id", columnList = "status, id"),
+        // Búsqueda de reservas activas con la fecha de devolución vencida
+        @Index(name = "idx_reservations_status_due", columnList = "status, expected_return_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Reservation {
     
+    // Igual que User: secuencia pooled para que los INSERT se agrupen en lotes
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservations_seq")
+    @SequenceGenerator(name = "reservations_seq", sequenceName = "reservations_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,46 @@
+package com.example.libreria.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sync_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncCheckpoint {
+    
+    @Id
+    private String name;
+    
+    // Último libro confirmado y cantidad de libros del flujo ya escritos
+    @Column(name = "last_external_id")
+    private Long lastExternalId;
+    
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+    
+    // Validadores HTTP de la última sincronización completa, para pedidos condicionales
+    @Column(name = "etag")
+    private String etag;
+    
+    @Column(name = "last_modified")
+    private String lastModified;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public SyncCheckpoint(String name) {
+        this.name = name;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -18,8 +18,12 @@ import java.util.List;
 @AllArgsConstructor
 public class User {
     
+    // Secuencia con optimizador pooled: Hibernate reserva 50 IDs por llamada a la secuencia y puede
+    // agrupar los INSERT en lotes de batch_size (con IDENTITY ejecutaba cada uno por separado).
+    // La migración de tablas existentes está en db/sequence-ids.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "El nombre es obligatorio")
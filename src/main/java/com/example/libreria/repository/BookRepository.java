@@ -1,16 +1,82 @@
 package com.example.libreria.repository;
 
 import com.example.libreria.model.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     
+    // Filas que el driver trae por viaje al recorrer un Stream de exportación
+    String EXPORT_FETCH_SIZE = "500";
+    
     Optional<Book> findByExternalId(Long externalId);
     
     boolean existsByExternalId(Long externalId);
+    
+    List<Book> findByExternalIdIn(Collection<Long> externalIds);
+    
+    // Exportación: una fila por autor (o una sin autor), ordenadas por libro para agruparlas al leer.
+    // Son valores sueltos, no entidades, así que el contexto de persistencia no crece con el recorrido.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT b.externalId, b.title, b.firstPublishYear, b.editionCount, b.hasFulltext, b.price, " +
+            "b.stockQuantity, b.availableQuantity, a FROM Book b LEFT JOIN b.authorName a ORDER BY b.externalId")
+    Stream<Object[]> streamBookAuthorRows();
+    
+    // Paginación por cursor: recorre la PK, así cualquier página cuesta lo mismo que la primera
+    List<Book> findByExternalIdGreaterThanOrderByExternalIdAsc(Long externalId, Limit limit);
+    
+    // Chequeo y descuento en una sola sentencia: devuelve 0 si no había ejemplares disponibles
+    @Modifying
+    @Query("UPDATE Book b SET b.availableQuantity = b.availableQuantity - 1 " +
+            "WHERE b.externalId = :externalId AND b.availableQuantity > 0")
+    int decrementAvailableQuantity(@Param("externalId") Long externalId);
+    
+    @Query("SELECT b.availableQuantity FROM Book b WHERE b.externalId = :externalId")
+    Optional<Integer> findAvailableQuantityByExternalId(@Param("externalId") Long externalId);
+    
+    // Variante para reservas en lote: descuenta quantity ejemplares o ninguno
+    @Modifying
+    @Query("UPDATE Book b SET b.availableQuantity = b.availableQuantity - :quantity " +
+            "WHERE b.externalId = :externalId AND b.availableQuantity >= :quantity")
+    int decrementAvailableQuantityBy(@Param("externalId") Long externalId, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE Book b SET b.availableQuantity = b.availableQuantity + 1 " +
+            "WHERE b.externalId = :externalId AND b.availableQuantity < b.stockQuantity")
+    int incrementAvailableQuantity(@Param("externalId") Long externalId);
+    
+    // Cambio de stock en una sola sentencia: la disponibilidad se mueve lo mismo que el stock y el
+    // chequeo contra los reservados usa los valores de la fila, no los leídos antes.
+    // Devuelve 0 si el stock nuevo queda por debajo de los ejemplares reservados
+    @Modifying
+    @Query("UPDATE Book b SET b.availableQuantity = b.availableQuantity + (:stockQuantity - b.stockQuantity), " +
+            "b.stockQuantity = :stockQuantity " +
+            "WHERE b.externalId = :externalId AND b.stockQuantity - b.availableQuantity <= :stockQuantity")
+    int updateStockAndAvailableQuantity(@Param("externalId") Long externalId, @Param("stockQuantity") int stockQuantity);
+    
+    // Con el ledger de inventario activo la disponibilidad se escribe aparte (write-behind)
+    @Modifying
+    @Query("UPDATE Book b SET b.stockQuantity = :stockQuantity WHERE b.externalId = :externalId")
+    int updateStockQuantity(@Param("externalId") Long externalId, @Param("stockQuantity") int stockQuantity);
+    
+    // Variante para devoluciones en lote: repone quantity ejemplares o ninguno
+    @Modifying
+    @Query("UPDATE Book b SET b.availableQuantity = b.availableQuantity + :quantity " +
+            "WHERE b.externalId = :externalId AND b.availableQuantity + :quantity <= b.stockQuantity")
+    int incrementAvailableQuantityBy(@Param("externalId") Long externalId, @Param("quantity") int quantity);
 }
 
@@ -0,0 +1,37 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.dto.RevenueTotalsDTO;
+import com.example.libreria.model.DailyRevenue;
+import com.example.libreria.model.DailyRevenueId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyRevenueRepository extends JpaRepository<DailyRevenue, DailyRevenueId>, DailyRevenueRollupRepository {
+
+    // Los reportes leen solo la tabla de totales diarios: el costo depende de los días, libros y
+    // usuarios del rango, no de la cantidad de reservas históricas
+    String TOTALS = "SUM(d.reservations), SUM(d.revenue), SUM(d.returns), SUM(d.lateReturns), SUM(d.lateFees)) " +
+            "FROM DailyRevenue d ";
+
+    String IN_RANGE = "WHERE d.id.revenueDate BETWEEN :from AND :to ";
+
+    @Query("SELECT new com.example.libreria.dto.RevenueTotalsDTO(CAST(d.id.revenueDate AS String), " +
+            "CAST(NULL AS String), " + TOTALS + IN_RANGE + "GROUP BY d.id.revenueDate ORDER BY d.id.revenueDate")
+    List<RevenueTotalsDTO> findTotalsByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.example.libreria.dto.RevenueTotalsDTO(CAST(d.id.bookExternalId AS String), b.title, " +
+            TOTALS + "LEFT JOIN Book b ON b.externalId = d.id.bookExternalId " + IN_RANGE +
+            "GROUP BY d.id.bookExternalId, b.title")
+    List<RevenueTotalsDTO> findTotalsByBook(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.example.libreria.dto.RevenueTotalsDTO(CAST(d.id.userId AS String), u.name, " +
+            TOTALS + "LEFT JOIN User u ON u.id = d.id.userId " + IN_RANGE +
+            "GROUP BY d.id.userId, u.name")
+    List<RevenueTotalsDTO> findTotalsByUser(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
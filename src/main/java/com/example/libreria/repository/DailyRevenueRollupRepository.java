@@ -0,0 +1,20 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.DailyRevenue;
+
+import java.util.Collection;
+
+public interface DailyRevenueRollupRepository {
+
+    /**
+     * Suma cada fila a los totales existentes de su día, libro y usuario (o la inserta),
+     * con un MERGE por fila enviado en lotes JDBC.
+     */
+    void addAll(Collection<DailyRevenue> deltas);
+
+    /**
+     * Recalcula la tabla completa a partir de reservations, en una sola transacción.
+     * Devuelve la cantidad de filas.
+     */
+    int rebuild();
+}
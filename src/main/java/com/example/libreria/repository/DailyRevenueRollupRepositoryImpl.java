@@ -0,0 +1,74 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.DailyRevenue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Map;
+
+// MERGE estándar (SQL:2003): incrementa la fila si existe y si no la inserta, en una sola sentencia
+@RequiredArgsConstructor
+public class DailyRevenueRollupRepositoryImpl implements DailyRevenueRollupRepository {
+
+    private static final String MERGE = "MERGE INTO daily_revenue t USING (VALUES (CAST(:revenueDate AS DATE), " +
+            "CAST(:bookExternalId AS BIGINT), CAST(:userId AS BIGINT), CAST(:reservations AS INTEGER), " +
+            "CAST(:revenue AS DECIMAL(14, 2)), CAST(:returns AS INTEGER), CAST(:lateReturns AS INTEGER), " +
+            "CAST(:lateFees AS DECIMAL(14, 2)))) " +
+            "s (revenue_date, book_external_id, user_id, reservations, revenue, returns, late_returns, late_fees) " +
+            "ON t.revenue_date = s.revenue_date AND t.book_external_id = s.book_external_id AND t.user_id = s.user_id " +
+            "WHEN MATCHED THEN UPDATE SET reservations = t.reservations + s.reservations, " +
+            "revenue = t.revenue + s.revenue, returns = t.returns + s.returns, " +
+            "late_returns = t.late_returns + s.late_returns, late_fees = t.late_fees + s.late_fees " +
+            "WHEN NOT MATCHED THEN INSERT (revenue_date, book_external_id, user_id, reservations, revenue, returns, " +
+            "late_returns, late_fees) VALUES (s.revenue_date, s.book_external_id, s.user_id, s.reservations, " +
+            "s.revenue, s.returns, s.late_returns, s.late_fees)";
+
+    private static final String DELETE_ALL = "DELETE FROM daily_revenue";
+
+    // Una tardía es una devolución posterior a la fecha esperada, igual que al devolver
+    private static final String REBUILD = "INSERT INTO daily_revenue (revenue_date, book_external_id, user_id, " +
+            "reservations, revenue, returns, late_returns, late_fees) " +
+            "SELECT revenue_date, book_external_id, user_id, SUM(reservations), SUM(revenue), SUM(returns), " +
+            "SUM(late_returns), SUM(late_fees) FROM (" +
+            "SELECT start_date AS revenue_date, book_external_id, user_id, 1 AS reservations, " +
+            "COALESCE(total_fee, 0) AS revenue, 0 AS returns, 0 AS late_returns, 0 AS late_fees FROM reservations " +
+            "UNION ALL " +
+            "SELECT actual_return_date, book_external_id, user_id, 0, 0, 1, " +
+            "CASE WHEN actual_return_date > expected_return_date THEN 1 ELSE 0 END, COALESCE(late_fee, 0) " +
+            "FROM reservations WHERE status = 'RETURNED' AND actual_return_date IS NOT NULL) f " +
+            "GROUP BY revenue_date, book_external_id, user_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAll(Collection<DailyRevenue> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] parameters = deltas.stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("revenueDate", delta.getId().getRevenueDate())
+                        .addValue("bookExternalId", delta.getId().getBookExternalId())
+                        .addValue("userId", delta.getId().getUserId())
+                        .addValue("reservations", delta.getReservations())
+                        .addValue("revenue", delta.getRevenue())
+                        .addValue("returns", delta.getReturns())
+                        .addValue("lateReturns", delta.getLateReturns())
+                        .addValue("lateFees", delta.getLateFees()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(MERGE, parameters);
+    }
+
+    // DELETE e INSERT en una sola transacción: si el INSERT falla la tabla queda como estaba.
+    // Una tabla a medias no se repararía, porque al iniciar solo se reconstruye si está vacía
+    @Override
+    @Transactional
+    public int rebuild() {
+        jdbcTemplate.update(DELETE_ALL, Map.of());
+        return jdbcTemplate.update(REBUILD, Map.of());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.dto.UserResponseDTO;
+import com.example.libreria.model.Reservation;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecturas por R2DBC sobre las mismas tablas que mapea JPA (el driver r2dbc-h2 bloquea por debajo
+ * de su API de Publisher: no libera hilos frente a JDBC). Cada método es un único SELECT
+ * cuyas filas se emiten a medida que llegan, así un listado completo no se arma en memoria.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveReadRepository {
+
+    // Libro con sus autores en un solo SELECT: hay una fila por autor y se agrupan por external_id
+    private static final String BOOK_SELECT = "SELECT b.external_id, b.title, b.first_publish_year, b.edition_count, " +
+            "b.has_fulltext, b.price, b.stock_quantity, b.available_quantity, a.author_name " +
+            "FROM books b LEFT JOIN book_authors a ON a.book_id = b.external_id ";
+
+    private static final String USER_SELECT = "SELECT id, name, email, phone_number, created_at FROM users ";
+
+    private static final String RESERVATION_SELECT = "SELECT r.id, u.id AS user_id, u.name AS user_name, " +
+            "b.external_id AS book_external_id, b.title AS book_title, r.rental_days, r.start_date, " +
+            "r.expected_return_date, r.actual_return_date, r.daily_rate, r.total_fee, r.late_fee, " +
+            "r.status, r.created_at " +
+            "FROM reservations r JOIN users u ON u.id = r.user_id JOIN books b ON b.external_id = r.book_external_id ";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<BookResponseDTO> findBooksAfter(long afterExternalId) {
+        return groupAuthors(databaseClient.sql(BOOK_SELECT + "WHERE b.external_id > :after ORDER BY b.external_id")
+                .bind("after", afterExternalId)
+                .map(ReactiveReadRepository::toBookRow)
+                .all());
+    }
+
+    public Mono<BookResponseDTO> findBookByExternalId(Long externalId) {
+        return groupAuthors(databaseClient.sql(BOOK_SELECT + "WHERE b.external_id = :externalId")
+                .bind("externalId", externalId)
+                .map(ReactiveReadRepository::toBookRow)
+                .all())
+                .next();
+    }
+
+    public Flux<UserResponseDTO> findUsersAfter(long afterId) {
+        return databaseClient.sql(USER_SELECT + "WHERE id > :after ORDER BY id")
+                .bind("after", afterId)
+                .map(ReactiveReadRepository::toUser)
+                .all();
+    }
+
+    public Mono<UserResponseDTO> findUserById(Long id) {
+        return databaseClient.sql(USER_SELECT + "WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveReadRepository::toUser)
+                .one();
+    }
+
+    public Flux<ReservationResponseDTO> findReservationsAfter(long afterId) {
+        return databaseClient.sql(RESERVATION_SELECT + "WHERE r.id > :after ORDER BY r.id")
+                .bind("after", afterId)
+                .map(ReactiveReadRepository::toReservation)
+                .all();
+    }
+
+    public Mono<ReservationResponseDTO> findReservationById(Long id) {
+        return databaseClient.sql(RESERVATION_SELECT + "WHERE r.id = :id")
+                .bind("id", id)
+                .map(ReactiveReadRepository::toReservation)
+                .one();
+    }
+
+    public Flux<ReservationResponseDTO> findReservationsByUserIdAfter(Long userId, long afterId) {
+        return databaseClient.sql(RESERVATION_SELECT + "WHERE r.user_id = :userId AND r.id > :after ORDER BY r.id")
+                .bind("userId", userId)
+                .bind("after", afterId)
+                .map(ReactiveReadRepository::toReservation)
+                .all();
+    }
+
+    // r2dbc-h2 envía los String como CLOB y H2 no compara CLOB con la columna ENUM que genera Hibernate
+    public Flux<ReservationResponseDTO> findReservationsByStatusAfter(Reservation.ReservationStatus status, long afterId) {
+        return databaseClient.sql(RESERVATION_SELECT
+                        + "WHERE r.status = CAST(:status AS VARCHAR(20)) AND r.id > :after ORDER BY r.id")
+                .bind("status", status.name())
+                .bind("after", afterId)
+                .map(ReactiveReadRepository::toReservation)
+                .all();
+    }
+
+    private record BookRow(BookResponseDTO book, String authorName) {
+    }
+
+    // Las filas llegan ordenadas por libro: se junta cada tramo consecutivo con el mismo external_id
+    private static Flux<BookResponseDTO> groupAuthors(Flux<BookRow> rows) {
+        return rows.bufferUntilChanged(row -> row.book().getExternalId())
+                .map(group -> {
+                    BookResponseDTO book = group.get(0).book();
+                    List<String> authors = new ArrayList<>(group.size());
+                    for (BookRow row : group) {
+                        if (row.authorName() != null) {
+                            authors.add(row.authorName());
+                        }
+                    }
+                    book.setAuthorName(authors);
+                    return book;
+                });
+    }
+
+    private static BookRow toBookRow(Readable row) {
+        BookResponseDTO book = new BookResponseDTO(
+                row.get("external_id", Long.class),
+                row.get("title", String.class),
+                null,
+                row.get("first_publish_year", Integer.class),
+                row.get("edition_count", Integer.class),
+                row.get("has_fulltext", Boolean.class),
+                row.get("price", BigDecimal.class),
+                row.get("stock_quantity", Integer.class),
+                row.get("available_quantity", Integer.class));
+        return new BookRow(book, row.get("author_name", String.class));
+    }
+
+    private static UserResponseDTO toUser(Readable row) {
+        return new UserResponseDTO(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("phone_number", String.class),
+                row.get("created_at", LocalDateTime.class));
+    }
+
+    private static ReservationResponseDTO toReservation(Readable row) {
+        return new ReservationResponseDTO(
+                row.get("id", Long.class),
+                row.get("user_id", Long.class),
+                row.get("user_name", String.class),
+                row.get("book_external_id", Long.class),
+                row.get("book_title", String.class),
+                row.get("rental_days", Integer.class),
+                row.get("start_date", LocalDate.class),
+                row.get("expected_return_date", LocalDate.class),
+                row.get("actual_return_date", LocalDate.class),
+                row.get("daily_rate", BigDecimal.class),
+                row.get("total_fee", BigDecimal.class),
+                row.get("late_fee", BigDecimal.class),
+                Reservation.ReservationStatus.valueOf(row.get("status", String.class)),
+                row.get("created_at", LocalDateTime.class));
+    }
+}
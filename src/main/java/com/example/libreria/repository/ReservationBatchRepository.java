@@ -0,0 +1,14 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.Reservation;
+
+import java.util.List;
+
+public interface ReservationBatchRepository {
+
+    /**
+     * Inserta las reservas en lotes JDBC y les asigna el ID (del generador de la entidad) y la fecha
+     * de creación. Las reservas deben traer usuario y libro con ID; no pasan por el contexto de persistencia.
+     */
+    void insertAll(List<Reservation> reservations);
+}
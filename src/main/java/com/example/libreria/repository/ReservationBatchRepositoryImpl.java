@@ -0,0 +1,63 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.Reservation;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// INSERT en lotes de batch_size sin pasar por el contexto de persistencia (ni dirty checking ni copia
+// del estado por entidad). Los IDs salen del mismo generador pooled que usa Hibernate para la entidad:
+// una llamada a reservations_seq cada 50 filas, compartiendo los bloques con los persist normales
+@RequiredArgsConstructor
+public class ReservationBatchRepositoryImpl implements ReservationBatchRepository {
+
+    private static final String INSERT = "INSERT INTO reservations (id, user_id, book_external_id, rental_days, " +
+            "start_date, expected_return_date, daily_rate, total_fee, late_fee, status, created_at) " +
+            "VALUES (:id, :userId, :bookExternalId, :rentalDays, :startDate, :expectedReturnDate, :dailyRate, " +
+            ":totalFee, :lateFee, :status, :createdAt)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize = 50;
+
+    @Override
+    public void insertAll(List<Reservation> reservations) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator ids = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Reservation.class).getGenerator();
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < reservations.size(); from += batchSize) {
+            List<Reservation> batch = reservations.subList(from, Math.min(from + batchSize, reservations.size()));
+            SqlParameterSource[] parameters = new SqlParameterSource[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                Reservation reservation = batch.get(i);
+                reservation.setId((Long) ids.generate(session, reservation, null, EventType.INSERT));
+                reservation.setCreatedAt(now);
+                parameters[i] = new MapSqlParameterSource()
+                        .addValue("id", reservation.getId())
+                        .addValue("userId", reservation.getUser().getId())
+                        .addValue("bookExternalId", reservation.getBook().getExternalId())
+                        .addValue("rentalDays", reservation.getRentalDays())
+                        .addValue("startDate", reservation.getStartDate())
+                        .addValue("expectedReturnDate", reservation.getExpectedReturnDate())
+                        .addValue("dailyRate", reservation.getDailyRate())
+                        .addValue("totalFee", reservation.getTotalFee())
+                        .addValue("lateFee", reservation.getLateFee())
+                        .addValue("status", reservation.getStatus().name())
+                        .addValue("createdAt", now);
+            }
+            jdbcTemplate.batchUpdate(INSERT, parameters);
+        }
+    }
+}
@@ -1,24 +1,72 @@
 package com.example.libreria.repository;
 
+import com.example.libreria.dto.ReservationResponseDTO;
 import com.example.libreria.model.Reservation;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+public interface ReservationRepository extends JpaRepository<Reservation, Long>, ReservationBatchRepository {
     
     // TODO: Implementar los métodos de la reserva
-    List<Reservation> findByUserId(Long userId);
 
-    List<Reservation> findByStatus(Reservation.ReservationStatus status);
-    @Query("SELECT r FROM Reservation r " +
+    // Los listados arman el DTO directamente en un único SELECT con join a usuario y libro,
+    // en lugar de cargar entidades y disparar dos consultas lazy por reserva (1 + 2N)
+    String RESPONSE_SELECT = "SELECT new com.example.libreria.dto.ReservationResponseDTO(" +
+            "r.id, u.id, u.name, b.externalId, b.title, r.rentalDays, r.startDate, " +
+            "r.expectedReturnDate, r.actualReturnDate, r.dailyRate, r.totalFee, r.lateFee, " +
+            "r.status, r.createdAt) " +
+            "FROM Reservation r JOIN r.user u JOIN r.book b ";
+
+    // Paginación por cursor sobre el id: cualquier página cuesta lo mismo que la primera
+    @Query(RESPONSE_SELECT + "WHERE r.id > :after ORDER BY r.id")
+    List<ReservationResponseDTO> findResponsesAfter(@Param("after") Long after, Limit limit);
+
+    @Query(RESPONSE_SELECT + "WHERE u.id = :userId AND r.id > :after ORDER BY r.id")
+    List<ReservationResponseDTO> findResponsesByUserIdAfter(@Param("userId") Long userId,
+                                                           @Param("after") Long after, Limit limit);
+
+    @Query(RESPONSE_SELECT + "WHERE r.status = :status AND r.id > :after ORDER BY r.id")
+    List<ReservationResponseDTO> findResponsesByStatusAfter(@Param("status") Reservation.ReservationStatus status,
+                                                           @Param("after") Long after, Limit limit);
+
+    // Exportación: las filas se leen del cursor JDBC de a EXPORT_FETCH_SIZE y, al ser DTOs,
+    // no quedan en el contexto de persistencia. Hay que consumir el Stream dentro de la transacción
+    // y cerrarlo. Los filtros nulos no se aplican; el rango de fechas es sobre startDate, inclusivo.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = BookRepository.EXPORT_FETCH_SIZE))
+    @Query(RESPONSE_SELECT + "WHERE (:status IS NULL OR r.status = :status) " +
+            "AND (:from IS NULL OR r.startDate >= :from) AND (:to IS NULL OR r.startDate <= :to) ORDER BY r.id")
+    Stream<ReservationResponseDTO> streamResponses(@Param("status") Reservation.ReservationStatus status,
+                                                   @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Devoluciones en lote: reservas con usuario y libro en un solo SELECT
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user JOIN FETCH r.book WHERE r.id IN :ids")
+    List<Reservation> findWithUserAndBookByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Candidatas a vencidas: recorre el índice (status, expected_return_date) y devuelve un lote acotado
+    @Query("SELECT r.id FROM Reservation r " +
             "WHERE r.status = com.example.libreria.model.Reservation.ReservationStatus.ACTIVE " +
-            "AND r.expectedReturnDate < CURRENT_DATE")
-    List<Reservation> findOverdueReservations();
+            "AND r.expectedReturnDate < :today ORDER BY r.expectedReturnDate, r.id")
+    List<Long> findOverdueCandidateIds(@Param("today") LocalDate today, Limit limit);
+
+    // Vuelve a exigir ACTIVE: si la reserva se devolvió entre la consulta y el UPDATE no se pisa
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = com.example.libreria.model.Reservation.ReservationStatus.OVERDUE " +
+            "WHERE r.id IN :ids " +
+            "AND r.status = com.example.libreria.model.Reservation.ReservationStatus.ACTIVE")
+    int markOverdue(@Param("ids") Collection<Long> ids);
 }
 
@@ -0,0 +1,9 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.SyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SyncCheckpointRepository extends JpaRepository<SyncCheckpoint, String> {
+}
@@ -0,0 +1,15 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.User;
+
+import java.util.List;
+
+public interface UserBatchRepository {
+
+    /**
+     * Inserta los usuarios en lotes JDBC y les asigna el ID (del generador de la entidad) y la fecha
+     * de creación. Un email ya registrado hace fallar el lote con DuplicateKeyException (restricción
+     * única de users.email).
+     */
+    void insertAll(List<User> users);
+}
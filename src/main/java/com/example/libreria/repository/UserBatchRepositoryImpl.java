@@ -0,0 +1,53 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.User;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Igual que las reservas: INSERT en lotes de batch_size sin pasar por el contexto de persistencia
+@RequiredArgsConstructor
+public class UserBatchRepositoryImpl implements UserBatchRepository {
+
+    private static final String INSERT = "INSERT INTO users (id, name, email, phone_number, created_at) " +
+            "VALUES (:id, :name, :email, :phoneNumber, :createdAt)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize = 50;
+
+    @Override
+    public void insertAll(List<User> users) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator ids = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(User.class).getGenerator();
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < users.size(); from += batchSize) {
+            List<User> batch = users.subList(from, Math.min(from + batchSize, users.size()));
+            SqlParameterSource[] parameters = new SqlParameterSource[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                User user = batch.get(i);
+                user.setId((Long) ids.generate(session, user, null, EventType.INSERT));
+                user.setCreatedAt(now);
+                parameters[i] = new MapSqlParameterSource()
+                        .addValue("id", user.getId())
+                        .addValue("name", user.getName())
+                        .addValue("email", user.getEmail())
+                        .addValue("phoneNumber", user.getPhoneNumber())
+                        .addValue("createdAt", now);
+            }
+            jdbcTemplate.batchUpdate(INSERT, parameters);
+        }
+    }
+}
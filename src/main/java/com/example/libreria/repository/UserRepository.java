@@ -1,16 +1,30 @@
 package com.example.libreria.repository;
 
 import com.example.libreria.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserBatchRepository {
     
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
+    
+    // Unicidad de un lote completo en una sola consulta, en lugar de un existsByEmail por usuario
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    List<User> findByIdIn(Collection<Long> ids);
 }
 
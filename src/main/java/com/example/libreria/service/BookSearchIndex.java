@@ -0,0 +1,627 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.BookSearchResultDTO;
+import com.example.libreria.model.Book;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Índice invertido en memoria sobre el título y los autores de los libros, para buscar en el
+ * catálogo sin recorrer la tabla books. Cada término apunta a los libros que lo contienen y cada
+ * trigrama a los términos que lo contienen. Un término de la búsqueda coincide con un término
+ * del índice si es igual, si es un prefijo (se busca mientras se escribe) o, cuando no hay
+ * coincidencia exacta, si está a una o dos ediciones (errores de tipeo); un libro tiene que
+ * coincidir con todos los términos de la búsqueda.
+ *
+ * Cada libro recibe un ordinal denso y las listas de cada término son arreglos de ordinales que
+ * no se modifican: una escritura arma el arreglo nuevo y lo publica, una vez por término y por
+ * lote. Así las búsquedas no bloquean ni encajonan números, y acumulan puntajes en arreglos
+ * por hilo indexados por ordinal.
+ *
+ * Se carga al iniciar y la sincronización lo actualiza después del commit de cada bloque.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookSearchIndex implements SmartInitializingSingleton {
+
+    private static final String LOAD_ALL = "SELECT b.external_id, b.title, a.author_name FROM books b " +
+            "LEFT JOIN book_authors a ON a.book_id = b.external_id ORDER BY b.external_id";
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Campos donde aparece un término (bits); un término del título pesa más que uno de los autores
+    private static final byte TITLE = 2;
+    private static final byte AUTHOR = 1;
+
+    private static final float EXACT_MATCH = 1.0f;
+    private static final float FUZZY_MATCH = 0.5f;
+    // Un prefijo muy corto expande a miles de términos: solo se recorren los primeros
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final Postings EMPTY = new Postings(new int[0], new byte[0]);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Libro por ordinal; un libro reindexado conserva su ordinal
+    private volatile Document[] documents = new Document[1024];
+    // Largo del título por ordinal, para desempatar sin cargar cada Document
+    private volatile int[] titleLengths = new int[1024];
+    private final ConcurrentHashMap<Long, Integer> ordinals = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Term> terms = new ConcurrentSkipListMap<>();
+    // Trigrama → IDs de los términos que lo contienen, para encontrar candidatos ante un error de tipeo
+    private final ConcurrentHashMap<String, int[]> trigrams = new ConcurrentHashMap<>();
+    private volatile Term[] termsById = new Term[1024];
+    // Largo de cada término por ID: descarta candidatos por largo sin cargar el Term
+    private volatile int[] termLengths = new int[1024];
+    // Caracteres presentes en cada término (ver lettersOf): una edición quita a lo sumo un bit y
+    // agrega otro, así que con k ediciones las máscaras difieren en 2k bits como mucho
+    private volatile long[] termLetters = new long[1024];
+    private int nextTermId;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /** Vuelve a cargar el índice completo desde la base. */
+    public synchronized void rebuild() {
+        Map<Long, Document> loaded = new LinkedHashMap<>();
+        jdbcTemplate.query(LOAD_ALL, rs -> {
+            String title = rs.getString(2);
+            Document document = loaded.computeIfAbsent(rs.getLong(1),
+                    id -> new Document(id, title, new ArrayList<>(), null));
+            String author = rs.getString(3);
+            if (author != null) {
+                document.authors().add(author);
+            }
+        });
+        documents = new Document[Math.max(1024, loaded.size())];
+        titleLengths = new int[documents.length];
+        ordinals.clear();
+        terms.clear();
+        trigrams.clear();
+        termsById = new Term[1024];
+        termLengths = new int[1024];
+        termLetters = new long[1024];
+        nextTermId = 0;
+        index(loaded.values());
+        log.info("Book search index loaded {} books and {} terms", ordinals.size(), terms.size());
+    }
+
+    /**
+     * Indexa los libros creados o modificados. Dentro de una transacción se aplica después del
+     * commit, así una sincronización que se revierte no deja libros buscables que no existen.
+     * Título y autores se copian antes: las entidades pueden quedar desconectadas al aplicar.
+     */
+    public void indexAfterCommit(Collection<Book> books) {
+        List<Document> changed = books.stream()
+                .map(book -> new Document(book.getExternalId(), book.getTitle(),
+                        book.getAuthorName() == null ? List.of() : List.copyOf(book.getAuthorName()), null))
+                .toList();
+        if (changed.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> index(changed));
+    }
+
+    /** Agrega o reemplaza un libro en el índice. */
+    public void index(Long externalId, String title, List<String> authors) {
+        index(List.of(new Document(externalId, title, authors == null ? List.of() : List.copyOf(authors), null)));
+    }
+
+    public int size() {
+        return ordinals.size();
+    }
+
+    /**
+     * Los libros que coinciden con todos los términos de la búsqueda, de mayor a menor relevancia.
+     * La relevancia suma, por término, la calidad de la coincidencia (exacta, prefijo o con
+     * errores) por el peso del campo; a igual relevancia van primero los títulos más cortos y
+     * después los indexados antes.
+     */
+    public List<BookSearchResultDTO> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException("La búsqueda debe contener al menos una palabra");
+        }
+        Scratch work = scratch.get();
+        Document[] snapshot = documents;
+        int[] lengths = titleLengths;
+        work.ensureDocuments(snapshot.length);
+        Term[] termSnapshot = termsById;
+        work.ensureTerms(Math.min(termSnapshot.length, Math.min(termLengths.length, termLetters.length)));
+
+        List<List<Expansion>> expansions = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            List<Expansion> tokenExpansions = expand(token, termSnapshot, work);
+            if (tokenExpansions.isEmpty()) {
+                return List.of();
+            }
+            expansions.add(tokenExpansions);
+        }
+        // El término con menos libros define los candidatos; los demás solo los filtran
+        expansions.sort(Comparator.comparingInt(BookSearchIndex::cost));
+
+        int[] touched = work.touched;
+        int candidates = 0;
+        try {
+            for (int round = 1; round <= expansions.size(); round++) {
+                for (Expansion expansion : expansions.get(round - 1)) {
+                    Postings postings = expansion.term().postings;
+                    for (int i = 0; i < postings.ordinals().length; i++) {
+                        int ordinal = postings.ordinals()[i];
+                        if (ordinal >= touched.length) {
+                            continue;
+                        }
+                        float score = expansion.quality() * weightOf(postings.fields()[i]);
+                        if (round == 1 && work.round[ordinal] == 0) {
+                            touched[candidates++] = ordinal;
+                            work.total[ordinal] = 0;
+                        }
+                        // round - 1: coincidió con todos los términos anteriores y todavía no con este
+                        if (work.round[ordinal] == round - 1) {
+                            work.round[ordinal] = round;
+                            work.best[ordinal] = score;
+                        } else if (work.round[ordinal] == round && score > work.best[ordinal]) {
+                            work.best[ordinal] = score;
+                        }
+                    }
+                }
+                for (int c = 0; c < candidates; c++) {
+                    int ordinal = touched[c];
+                    if (work.round[ordinal] == round) {
+                        work.total[ordinal] += work.best[ordinal];
+                    }
+                }
+            }
+            return top(snapshot, lengths, work, candidates, expansions.size(), limit);
+        } finally {
+            for (int c = 0; c < candidates; c++) {
+                work.round[touched[c]] = 0;
+            }
+        }
+    }
+
+    // Selección de los mejores sin ordenar todos los candidatos: el heap tiene el peor de los
+    // elegidos arriba y cada candidato se compara con datos primitivos, sin tocar su Document
+    private List<BookSearchResultDTO> top(Document[] snapshot, int[] lengths, Scratch work, int candidates,
+                                          int rounds, int limit) {
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, BookSearchIndex::compareHits);
+        for (int c = 0; c < candidates; c++) {
+            int ordinal = work.touched[c];
+            if (work.round[ordinal] != rounds || ordinal >= lengths.length) {
+                continue;
+            }
+            Hit hit = top.size() < limit ? null : top.peek();
+            if (hit == null || compare(work.total[ordinal], lengths[ordinal], ordinal,
+                    hit.score(), hit.titleLength(), hit.ordinal()) > 0) {
+                if (hit != null) {
+                    top.poll();
+                }
+                top.add(new Hit(ordinal, work.total[ordinal], lengths[ordinal]));
+            }
+        }
+        List<BookSearchResultDTO> results = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            Hit hit = top.poll();
+            Document document = hit.ordinal() < snapshot.length ? snapshot[hit.ordinal()] : null;
+            if (document != null) {
+                results.add(new BookSearchResultDTO(document.externalId(), document.title(), document.authors(),
+                        Math.round(hit.score() * 1000) / 1000.0));
+            }
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    private static int compareHits(Hit a, Hit b) {
+        return compare(a.score(), a.titleLength(), a.ordinal(), b.score(), b.titleLength(), b.ordinal());
+    }
+
+    // Positivo si a es mejor que b: más puntaje, después título más corto, después el indexado antes
+    // (en la carga inicial, el externalId menor)
+    private static int compare(float scoreA, int lengthA, int ordinalA, float scoreB, int lengthB, int ordinalB) {
+        if (scoreA != scoreB) {
+            return Float.compare(scoreA, scoreB);
+        }
+        if (lengthA != lengthB) {
+            return Integer.compare(lengthB, lengthA);
+        }
+        return Integer.compare(ordinalB, ordinalA);
+    }
+
+    // Términos del índice con los que coincide el de la búsqueda y la calidad de cada coincidencia
+    private List<Expansion> expand(String token, Term[] termSnapshot, Scratch work) {
+        List<Expansion> expansions = new ArrayList<>();
+        Term exact = terms.get(token);
+        if (exact != null) {
+            expansions.add(new Expansion(exact, EXACT_MATCH));
+        }
+        int prefixes = 0;
+        for (Term term : terms.tailMap(token, false).values()) {
+            if (!term.text.startsWith(token) || ++prefixes > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            // Cuanto más completo está el término, más se acerca a una coincidencia exacta
+            expansions.add(new Expansion(term, 0.5f + 0.4f * token.length() / term.text.length()));
+        }
+        if (exact == null && token.length() >= MIN_FUZZY_LENGTH) {
+            for (Term term : similarTerms(token, termSnapshot, work)) {
+                expansions.add(new Expansion(term, FUZZY_MATCH));
+            }
+        }
+        return expansions;
+    }
+
+    private static int cost(List<Expansion> expansions) {
+        int cost = 0;
+        for (Expansion expansion : expansions) {
+            cost += expansion.term().postings.ordinals().length;
+        }
+        return cost;
+    }
+
+    // Un término en título y autores cuenta como título
+    private static int weightOf(byte fields) {
+        return (fields & TITLE) != 0 ? TITLE : AUTHOR;
+    }
+
+    // Términos a distancia de edición 1 (2 desde 8 letras). Cada edición toca a lo sumo 4 trigramas
+    // (una transposición cambia dos letras), así que con k ediciones un término comparte al menos
+    // trigramas(token) - 4k con el token y solo esos se comparan
+    private List<Term> similarTerms(String token, Term[] termSnapshot, Scratch work) {
+        int maxEdits = token.length() >= 8 ? 2 : 1;
+        List<String> tokenTrigrams = trigramsOf(token);
+        int minShared = Math.max(1, tokenTrigrams.size() - 4 * maxEdits);
+        int[] shared = work.shared;
+        int[] counted = work.counted;
+        int[] lengths = termLengths;
+        long[] letters = termLetters;
+        long tokenLetters = lettersOf(token);
+        int distinct = 0;
+        List<Term> similar = new ArrayList<>();
+        try {
+            for (String trigram : tokenTrigrams) {
+                int[] withTrigram = trigrams.get(trigram);
+                if (withTrigram == null) {
+                    continue;
+                }
+                for (int id : withTrigram) {
+                    if (id < shared.length && shared[id]++ == 0) {
+                        counted[distinct++] = id;
+                    }
+                }
+            }
+            for (int c = 0; c < distinct; c++) {
+                int id = counted[c];
+                if (shared[id] < minShared || Math.abs(lengths[id] - token.length()) > maxEdits
+                        || Long.bitCount(letters[id] ^ tokenLetters) > 2 * maxEdits) {
+                    continue;
+                }
+                Term term = termSnapshot[id];
+                if (term != null && editDistance(token, term.text, maxEdits, work.rows(term.text.length())) <= maxEdits) {
+                    similar.add(term);
+                }
+            }
+        } finally {
+            for (int c = 0; c < distinct; c++) {
+                shared[counted[c]] = 0;
+            }
+        }
+        return similar;
+    }
+
+    /**
+     * Aplica un lote: calcula qué términos gana o pierde cada libro y reemplaza una sola vez la
+     * lista de cada término afectado. Los términos que se quedan sin libros salen del índice.
+     */
+    private synchronized void index(Collection<Document> batch) {
+        Map<String, SortedMap<Integer, Byte>> added = new HashMap<>();
+        Map<String, Set<Integer>> removed = new HashMap<>();
+        for (Document incoming : batch) {
+            Map<String, Byte> fields = fieldsOf(incoming.title(), incoming.authors());
+            Integer existing = ordinals.get(incoming.externalId());
+            int ordinal = existing == null ? ordinals.size() : existing;
+            ensureCapacity(ordinal + 1);
+            Document previous = documents[ordinal];
+            if (previous != null) {
+                for (Map.Entry<String, Byte> term : previous.fields().entrySet()) {
+                    if (!term.getValue().equals(fields.get(term.getKey()))) {
+                        removed.computeIfAbsent(term.getKey(), key -> new HashSet<>()).add(ordinal);
+                        // Si el mismo libro llegó dos veces en el lote, gana la última versión
+                        Map<Integer, Byte> pending = added.get(term.getKey());
+                        if (pending != null) {
+                            pending.remove(ordinal);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<String, Byte> term : fields.entrySet()) {
+                if (previous == null || !term.getValue().equals(previous.fields().get(term.getKey()))) {
+                    added.computeIfAbsent(term.getKey(), key -> new TreeMap<>()).put(ordinal, term.getValue());
+                }
+            }
+            titleLengths[ordinal] = incoming.title().length();
+            documents[ordinal] = new Document(incoming.externalId(), incoming.title(), incoming.authors(), fields);
+            ordinals.put(incoming.externalId(), ordinal);
+        }
+
+        Map<String, List<Integer>> trigramsAdded = new HashMap<>();
+        Map<String, Set<Integer>> trigramsRemoved = new HashMap<>();
+        Set<String> changedTerms = new HashSet<>(added.keySet());
+        changedTerms.addAll(removed.keySet());
+        for (String text : changedTerms) {
+            Term term = terms.get(text);
+            Postings postings = merge(term == null ? EMPTY : term.postings,
+                    removed.getOrDefault(text, Set.of()), added.getOrDefault(text, Collections.emptySortedMap()));
+            if (postings.ordinals().length == 0) {
+                if (term != null) {
+                    terms.remove(text);
+                    termsById[term.id] = null;
+                    trigramsOf(text).forEach(trigram ->
+                            trigramsRemoved.computeIfAbsent(trigram, key -> new HashSet<>()).add(term.id));
+                }
+            } else if (term == null) {
+                Term created = new Term(text, nextTermId++, postings);
+                if (created.id >= termsById.length) {
+                    termLengths = Arrays.copyOf(termLengths, termsById.length * 2);
+                    termLetters = Arrays.copyOf(termLetters, termsById.length * 2);
+                    termsById = Arrays.copyOf(termsById, termsById.length * 2);
+                }
+                termLengths[created.id] = text.length();
+                termLetters[created.id] = lettersOf(text);
+                termsById[created.id] = created;
+                terms.put(text, created);
+                trigramsOf(text).forEach(trigram ->
+                        trigramsAdded.computeIfAbsent(trigram, key -> new ArrayList<>()).add(created.id));
+            } else {
+                term.postings = postings;
+            }
+        }
+        Set<String> changedTrigrams = new HashSet<>(trigramsAdded.keySet());
+        changedTrigrams.addAll(trigramsRemoved.keySet());
+        for (String trigram : changedTrigrams) {
+            // Los IDs nuevos son siempre mayores: agregarlos al final mantiene el arreglo ordenado
+            Set<Integer> gone = trigramsRemoved.getOrDefault(trigram, Set.of());
+            IntStream kept = Arrays.stream(trigrams.getOrDefault(trigram, new int[0])).filter(id -> !gone.contains(id));
+            int[] withTrigram = IntStream.concat(kept, trigramsAdded.getOrDefault(trigram, List.of()).stream()
+                    .mapToInt(Integer::intValue)).toArray();
+            if (withTrigram.length == 0) {
+                trigrams.remove(trigram);
+            } else {
+                trigrams.put(trigram, withTrigram);
+            }
+        }
+    }
+
+    // Las listas quedan ordenadas por ordinal: la búsqueda recorre los arreglos de trabajo en
+    // orden en lugar de saltar al azar, y el merge con los agregados (también ordenados) es lineal
+    private static Postings merge(Postings current, Set<Integer> removed, SortedMap<Integer, Byte> added) {
+        int[] ordinals = new int[current.ordinals().length + added.size()];
+        byte[] fields = new byte[ordinals.length];
+        int size = 0;
+        Iterator<Map.Entry<Integer, Byte>> pending = added.entrySet().iterator();
+        Map.Entry<Integer, Byte> next = pending.hasNext() ? pending.next() : null;
+        for (int i = 0; i < current.ordinals().length; i++) {
+            int ordinal = current.ordinals()[i];
+            while (next != null && next.getKey() < ordinal) {
+                ordinals[size] = next.getKey();
+                fields[size++] = next.getValue();
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            if (!removed.contains(ordinal) && (next == null || next.getKey() != ordinal)) {
+                ordinals[size] = ordinal;
+                fields[size++] = current.fields()[i];
+            }
+        }
+        while (next != null) {
+            ordinals[size] = next.getKey();
+            fields[size++] = next.getValue();
+            next = pending.hasNext() ? pending.next() : null;
+        }
+        return new Postings(Arrays.copyOf(ordinals, size), Arrays.copyOf(fields, size));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > documents.length) {
+            int grown = Math.max(capacity, documents.length * 2);
+            titleLengths = Arrays.copyOf(titleLengths, grown);
+            documents = Arrays.copyOf(documents, grown);
+        }
+    }
+
+    private static Map<String, Byte> fieldsOf(String title, List<String> authors) {
+        Map<String, Byte> fields = new HashMap<>();
+        for (String term : tokenize(title)) {
+            fields.merge(term, TITLE, (current, field) -> (byte) (current | field));
+        }
+        for (String author : authors) {
+            for (String term : tokenize(author)) {
+                fields.merge(term, AUTHOR, (current, field) -> (byte) (current | field));
+            }
+        }
+        return fields;
+    }
+
+    static int editDistance(String a, String b, int max) {
+        return editDistance(a, b, max, new int[3][b.length() + 1]);
+    }
+
+    // Distancia de Damerau-Levenshtein (transposiciones adyacentes), cortando al superar max.
+    // Solo se calcula la banda |i - j| <= max: fuera de ella la distancia ya es mayor que max.
+    // rows: tres filas de al menos b.length() + 1, reutilizadas entre llamadas
+    private static int editDistance(String a, String b, int max, int[][] rows) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = rows[0];
+        int[] previous = rows[1];
+        int[] current = rows[2];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length(), i + max);
+            current[from - 1] = from == 1 ? i : max + 1;
+            int rowMin = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previous2[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            if (to < b.length()) {
+                current[to + 1] = max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    // a–z en los bits 0–25, dígitos en 26–35 y cualquier otro carácter en el bit 36. Los que
+    // comparten ese bit solo vuelven el filtro más permisivo, nunca descartan un término válido
+    static long lettersOf(String term) {
+        long letters = 0;
+        for (int i = 0; i < term.length(); i++) {
+            letters |= 1L << letterBit(term.charAt(i));
+        }
+        return letters;
+    }
+
+    private static int letterBit(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 26 + c - '0';
+        }
+        return 36;
+    }
+
+    // Minúsculas y sin acentos, separando por todo lo que no sea letra o dígito
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Con relleno al inicio y al final, así los bordes de la palabra también cuentan
+    private static List<String> trigramsOf(String term) {
+        String padded = "$$" + term + "$";
+        List<String> result = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private static final class Term {
+        private final String text;
+        private final int id;
+        private volatile Postings postings;
+
+        private Term(String text, int id, Postings postings) {
+            this.text = text;
+            this.id = id;
+            this.postings = postings;
+        }
+    }
+
+    // Ordinales de los libros que contienen el término y los campos donde aparece; no se modifican
+    private record Postings(int[] ordinals, byte[] fields) {
+    }
+
+    // fields: término → campos, calculado al indexar; null mientras el libro no se indexó
+    private record Document(Long externalId, String title, List<String> authors, Map<String, Byte> fields) {
+    }
+
+    private record Expansion(Term term, float quality) {
+    }
+
+    private record Hit(int ordinal, float score, int titleLength) {
+    }
+
+    // Arreglos de trabajo de cada hilo: se reutilizan entre búsquedas y se limpian solo en las
+    // posiciones tocadas, así una búsqueda no recorre ni asigna memoria proporcional al catálogo
+    private static final class Scratch {
+        private int[] round = new int[0];
+        private float[] best = new float[0];
+        private float[] total = new float[0];
+        private int[] touched = new int[0];
+        private int[] shared = new int[0];
+        private int[] counted = new int[0];
+        private int[][] rows = new int[3][32];
+
+        private void ensureDocuments(int capacity) {
+            if (round.length < capacity) {
+                round = new int[capacity];
+                best = new float[capacity];
+                total = new float[capacity];
+                touched = new int[capacity];
+            }
+        }
+
+        private int[][] rows(int length) {
+            if (rows[0].length <= length) {
+                rows = new int[3][length + 1];
+            }
+            return rows;
+        }
+
+        private void ensureTerms(int capacity) {
+            if (shared.length < capacity) {
+                shared = new int[capacity];
+                counted = new int[capacity];
+            }
+        }
+    }
+}
@@ -1,57 +1,171 @@
 package com.example.libreria.service;
 
+import com.example.libreria.config.CacheConfig;
+import com.example.libreria.dto.BookFacetsDTO;
 import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.BookSearchResultDTO;
+import com.example.libreria.dto.CursorPageDTO;
 import com.example.libreria.dto.ExternalBookDTO;
+import com.example.libreria.dto.ExternalCatalogDTO;
+import com.example.libreria.dto.SyncResultDTO;
 import com.example.libreria.model.Book;
+import com.example.libreria.model.SyncCheckpoint;
 import com.example.libreria.repository.BookRepository;
+import com.example.libreria.repository.SyncCheckpointRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed("libreria.service")
 public class BookService {
     
     private final BookRepository bookRepository;
     private final ExternalBookService externalBookService;
+    private final BookSyncWriter bookSyncWriter;
+    private final SyncCheckpointRepository syncCheckpointRepository;
+    private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+    private final InventoryLedger inventoryLedger;
+    private final BookSearchIndex bookSearchIndex;
+    private final CatalogFacetIndex catalogFacetIndex;
+    private final ReadVersions readVersions;
     
-    @Transactional
-    public void syncBooksFromExternalApi() {
+    private static final String BOOKS_SYNC_CHECKPOINT = "books";
+    // Validadores HTTP de la sincronización completa, en su propia fila: cada sincronización guarda
+    // su copia del checkpoint completa y con una sola fila una pisaría el avance de la otra
+    private static final String BOOKS_FULL_SYNC_CHECKPOINT = "books-full";
+    
+    @Value("${external.api.books.sync-chunk-size:500}")
+    private int syncChunkSize = 500;
+    
+    // Sin transacción propia: cada bloque se confirma en su propia transacción corta
+    @Timed(value = "libreria.books.sync", extraTags = {"mode", "full"}, histogram = true)
+    public SyncResultDTO syncBooksFromExternalApi() {
         log.info("Synchronizing books from external API");
-        List<ExternalBookDTO> externalBooks = externalBookService.fetchAllBooks();
+        SyncCheckpoint syncState = syncCheckpointRepository.findById(BOOKS_FULL_SYNC_CHECKPOINT)
+                .orElseGet(() -> new SyncCheckpoint(BOOKS_FULL_SYNC_CHECKPOINT));
+        ExternalCatalogDTO catalog = externalBookService.fetchAllBooksIfModified(
+                syncState.getEtag(), syncState.getLastModified());
         
-        for (ExternalBookDTO externalBook : externalBooks) {
-            Book existingBook = bookRepository.findByExternalId(externalBook.getId())
-                    .orElse(null);
-            
-            if (existingBook == null) {
-                Book newBook = convertToBook(externalBook);
-                newBook.setStockQuantity(10);
-                newBook.setAvailableQuantity(10);
-                bookRepository.save(newBook);
-                log.info("Created new book: {}", newBook.getTitle());
-            } else {
-                // Actualizar información del libro
-                updateBookFromExternal(existingBook, externalBook);
-                bookRepository.save(existingBook);
-                log.info("Updated book: {}", existingBook.getTitle());
-            }
+        SyncResultDTO result = new SyncResultDTO();
+        if (catalog.isNotModified()) {
+            log.info("External catalog not modified since last synchronization");
+            meterRegistry.counter("libreria.books.sync.not_modified").increment();
+            result.setNotModified(true);
+            return result;
         }
-        log.info("Synchronization completed");
+        
+        List<ExternalBookDTO> externalBooks = catalog.getBooks();
+        for (int from = 0; from < externalBooks.size(); from += syncChunkSize) {
+            int to = Math.min(from + syncChunkSize, externalBooks.size());
+            result.add(bookSyncWriter.writeChunk(externalBooks.subList(from, to)));
+        }
+        
+        // Los validadores se guardan recién cuando todos los bloques se confirmaron
+        syncState.setEtag(catalog.getEtag());
+        syncState.setLastModified(catalog.getLastModified());
+        syncCheckpointRepository.save(syncState);
+        log.info("Synchronization completed: {} created, {} updated, {} unchanged",
+                result.getCreated(), result.getUpdated(), result.getUnchanged());
+        recordSyncedBooks("full", result);
+        return result;
+    }
+    
+    // Lee el flujo externo en ventanas de syncChunkSize: solo hay unas pocas ventanas en memoria
+    // a la vez y cada una se confirma junto con el checkpoint. Si falla, la próxima ejecución
+    // retoma después del último libro confirmado en lugar de empezar de nuevo.
+    @Timed(value = "libreria.books.sync", extraTags = {"mode", "streaming"}, histogram = true)
+    public SyncResultDTO syncBooksStreaming() {
+        SyncCheckpoint checkpoint = syncCheckpointRepository.findById(BOOKS_SYNC_CHECKPOINT)
+                .orElseGet(() -> new SyncCheckpoint(BOOKS_SYNC_CHECKPOINT));
+        long resumeFrom = checkpoint.getProcessedCount();
+        
+        Flux<ExternalBookDTO> books = externalBookService.streamAllBooks();
+        if (resumeFrom > 0) {
+            log.info("Resuming streaming synchronization after externalId {} ({} books already committed)",
+                    checkpoint.getLastExternalId(), resumeFrom);
+            books = skipCommitted(books, checkpoint);
+        } else {
+            log.info("Starting streaming synchronization from external API");
+        }
+        
+        SyncResultDTO result = new SyncResultDTO();
+        long processed = resumeFrom;
+        // toIterable(1) pide una ventana por vez: el productor no avanza mientras se escribe
+        for (List<ExternalBookDTO> window : books.buffer(syncChunkSize).toIterable(1)) {
+            processed += window.size();
+            result.add(bookSyncWriter.writeChunk(window, BOOKS_SYNC_CHECKPOINT, processed));
+        }
+        
+        checkpoint.setLastExternalId(null);
+        checkpoint.setProcessedCount(0L);
+        syncCheckpointRepository.save(checkpoint);
+        log.info("Streaming synchronization completed: {} books, {} created, {} updated, {} unchanged",
+                processed, result.getCreated(), result.getUpdated(), result.getUnchanged());
+        recordSyncedBooks("streaming", result);
+        return result;
     }
     
     @Transactional(readOnly = true)
-    public List<BookResponseDTO> getAllBooks() {
-        return bookRepository.findAll().stream()
+    public CursorPageDTO<BookResponseDTO> getAllBooks(Long afterExternalId, int size) {
+        List<BookResponseDTO> books = bookRepository
+                .findByExternalIdGreaterThanOrderByExternalIdAsc(afterExternalId == null ? 0L : afterExternalId, Limit.of(size + 1))
+                .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        return CursorPageDTO.of(books, size, BookResponseDTO::getExternalId);
+    }
+    
+    // Responde desde el índice en memoria, sin consultar la base
+    public List<BookSearchResultDTO> searchBooks(String query, int size) {
+        return bookSearchIndex.search(query, size);
     }
     
+    /**
+     * Filtra y cuenta facetas en memoria; solo la página de libros se lee de la base, por PK.
+     * Las páginas se recorren por externalId con el cursor after, igual que en getAllBooks.
+     */
+    @Transactional(readOnly = true)
+    public BookFacetsDTO filterBooks(CatalogFacetIndex.Filter filter, Long afterExternalId, int size) {
+        CatalogFacetIndex.Result result = catalogFacetIndex.query(filter, afterExternalId, size + 1);
+        Map<Long, Book> books = getBooksByExternalIds(result.externalIds());
+        List<BookResponseDTO> rows = result.externalIds().stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        CursorPageDTO<BookResponseDTO> page = CursorPageDTO.of(rows, size, BookResponseDTO::getExternalId);
+        return new BookFacetsDTO(result.total(), page.getItems(), page.getNext(), result.facets());
+    }
+    
+    // Cacheado por externalId; toda escritura del libro invalida su entrada después del commit.
+    // La disponibilidad cacheada es solo informativa: las reservas descuentan con un UPDATE condicional
+    // (o en el ledger, del que también sale la disponibilidad al recargar la entrada)
+    @Cacheable(CacheConfig.BOOKS_CACHE)
     @Transactional(readOnly = true)
     public BookResponseDTO getBookByExternalId(Long externalId) {
         Book book = bookRepository.findByExternalId(externalId)
@@ -59,81 +173,212 @@ public class BookService {
         return convertToDTO(book);
     }
     
+    // Referencia perezosa para asociar el libro a otra entidad sin consultarlo
+    @Transactional(readOnly = true)
+    public Book getBookReference(Long externalId) {
+        return bookRepository.getReferenceById(externalId);
+    }
+    
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#externalId")
     @Transactional
     public BookResponseDTO updateStock(Long externalId, Integer stockQuantity) {
+        if (inventoryLedger.isEnabled()) {
+            Book book = bookRepository.findByExternalId(externalId)
+                    .orElseThrow(() -> new RuntimeException("Libro no encontrado con ID externo: " + externalId));
+            // La disponibilidad la lleva el ledger: solo se escribe el stock, sin pisar available_quantity
+            int reserved = inventoryLedger.updateStock(externalId, stockQuantity);
+            if (reserved < 0) {
+                throw new RuntimeException("No se puede reducir el stock por debajo de los libros reservados: "
+                        + (book.getStockQuantity() - inventoryLedger.getAvailableQuantity(externalId)));
+            }
+            bookRepository.updateStockQuantity(externalId, stockQuantity);
+            catalogFacetIndex.setAvailableAfterCommit(externalId, stockQuantity - reserved);
+            readVersions.bookChangedAfterCommit(externalId);
+            BookResponseDTO dto = convertToDTO(book);
+            dto.setStockQuantity(stockQuantity);
+            dto.setAvailableQuantity(stockQuantity - reserved);
+            return dto;
+        }
+        
+        // Chequeo y escritura en un solo UPDATE: una reserva o devolución concurrente no se pierde
+        int updated = bookRepository.updateStockAndAvailableQuantity(externalId, stockQuantity);
+        // La fila ya quedó bloqueada por el UPDATE (o no cambió): la lectura ve los valores actuales
         Book book = bookRepository.findByExternalId(externalId)
                 .orElseThrow(() -> new RuntimeException("Libro no encontrado con ID externo: " + externalId));
-        
-        int reserved = book.getStockQuantity() - book.getAvailableQuantity();
-        if (stockQuantity < reserved) {
-            throw new RuntimeException("No se puede reducir el stock por debajo de los libros reservados: " + reserved);
+        if (updated == 0) {
+            throw new RuntimeException("No se puede reducir el stock por debajo de los libros reservados: "
+                    + (book.getStockQuantity() - book.getAvailableQuantity()));
         }
-        
-        book.setStockQuantity(stockQuantity);
-        book.setAvailableQuantity(stockQuantity - reserved);
-        bookRepository.save(book);
+        catalogFacetIndex.setAvailableAfterCommit(externalId, book.getAvailableQuantity());
+        readVersions.bookChangedAfterCommit(externalId);
         
         return convertToDTO(book);
     }
     
+    @CacheEvict(CacheConfig.BOOKS_CACHE)
     @Transactional
     public void decreaseAvailableQuantity(Long externalId) {
-        Book book = bookRepository.findByExternalId(externalId)
-                .orElseThrow(() -> new RuntimeException("Libro no encontrado con ID externo: " + externalId));
-        
-        if (book.getAvailableQuantity() <= 0) {
+        if (!tryDecreaseAvailableQuantity(externalId)) {
+            if (!bookRepository.existsByExternalId(externalId)) {
+                throw new RuntimeException("Libro no encontrado con ID externo: " + externalId);
+            }
             throw new RuntimeException("No hay libros disponibles para reservar");
         }
-        
-        book.setAvailableQuantity(book.getAvailableQuantity() - 1);
-        bookRepository.save(book);
     }
     
+    @CacheEvict(CacheConfig.BOOKS_CACHE)
     @Transactional
     public void increaseAvailableQuantity(Long externalId) {
-        Book book = bookRepository.findByExternalId(externalId)
-                .orElseThrow(() -> new RuntimeException("Libro no encontrado con ID externo: " + externalId));
-        
-        if (book.getAvailableQuantity() >= book.getStockQuantity()) {
+        if (!tryIncreaseAvailableQuantity(externalId)) {
+            if (!bookRepository.existsByExternalId(externalId)) {
+                throw new RuntimeException("Libro no encontrado con ID externo: " + externalId);
+            }
             throw new RuntimeException("La cantidad disponible no puede exceder el stock");
         }
-        
-        book.setAvailableQuantity(book.getAvailableQuantity() + 1);
-        bookRepository.save(book);
     }
     
-    private Book convertToBook(ExternalBookDTO dto) {
-        Book book = new Book();
-        book.setExternalId(dto.getId());
-        book.setTitle(dto.getTitle());
-        book.setAuthorName(dto.getAuthorName());
-        book.setFirstPublishYear(dto.getFirstPublishYear());
-        book.setEditionCount(dto.getEditionCount());
-        book.setHasFulltext(dto.getHasFulltext());
-        book.setPrice(dto.getPrice());
-        return book;
+    // UPDATE condicional: con concurrencia no hay lecturas viejas ni sobreventa,
+    // la cantidad de filas afectadas decide si se pudo descontar. Con el ledger activo
+    // el chequeo es un CAS en memoria y la fila se actualiza en el próximo flush
+    @CacheEvict(CacheConfig.BOOKS_CACHE)
+    @Transactional
+    public boolean tryDecreaseAvailableQuantity(Long externalId) {
+        boolean decreased = inventoryLedger.isEnabled()
+                ? inventoryLedger.tryDecrease(externalId, 1)
+                : bookRepository.decrementAvailableQuantity(externalId) > 0;
+        if (decreased) {
+            catalogFacetIndex.changeAvailableAfterCommit(externalId, -1);
+            readVersions.bookChangedAfterCommit(externalId);
+        }
+        return decreased;
+    }
+    
+    @CacheEvict(CacheConfig.BOOKS_CACHE)
+    @Transactional
+    public boolean tryIncreaseAvailableQuantity(Long externalId) {
+        boolean increased = inventoryLedger.isEnabled()
+                ? inventoryLedger.tryIncrease(externalId, 1)
+                : bookRepository.incrementAvailableQuantity(externalId) > 0;
+        if (increased) {
+            catalogFacetIndex.changeAvailableAfterCommit(externalId, 1);
+            readVersions.bookChangedAfterCommit(externalId);
+        }
+        return increased;
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<Long, Book> getBooksByExternalIds(Collection<Long> externalIds) {
+        return bookRepository.findByExternalIdIn(externalIds).stream()
+                .collect(Collectors.toMap(Book::getExternalId, Function.identity()));
+    }
+    
+    /**
+     * Ejemplares disponibles del libro. Con el ledger de inventario activo la fuente de verdad son
+     * sus contadores: available_quantity en la fila puede atrasarse hasta un flush.
+     */
+    public Integer getAvailableQuantity(Book book) {
+        return inventoryLedger.isEnabled()
+                ? inventoryLedger.getAvailableQuantity(book.getExternalId(), book.getAvailableQuantity())
+                : book.getAvailableQuantity();
+    }
+    
+    /**
+     * Descuenta hasta la cantidad pedida por libro con un UPDATE condicional por libro. Si el UPDATE
+     * no aplica porque la disponibilidad cambió desde la lectura, se vuelve a leer y se descuenta lo
+     * que haya, así nunca se rechazan pedidos con ejemplares disponibles. Devuelve los ejemplares
+     * descontados por libro; los libros sin ejemplares no aparecen.
+     */
+    @Transactional
+    public Map<Long, Integer> tryDecreaseAvailableQuantities(Map<Long, Integer> quantities) {
+        Cache booksCache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        Map<Long, Integer> decreased = new LinkedHashMap<>();
+        quantities.forEach((externalId, requested) -> {
+            int quantity = requested;
+            while (quantity > 0 && !tryDecrease(externalId, quantity)) {
+                quantity = Math.min(requested, currentAvailableQuantity(externalId));
+            }
+            if (quantity > 0) {
+                decreased.put(externalId, quantity);
+                booksCache.evict(externalId);
+                catalogFacetIndex.changeAvailableAfterCommit(externalId, -quantity);
+            }
+        });
+        readVersions.booksChangedAfterCommit(decreased.keySet());
+        return decreased;
+    }
+    
+    private boolean tryDecrease(Long externalId, int quantity) {
+        return inventoryLedger.isEnabled()
+                ? inventoryLedger.tryDecrease(externalId, quantity)
+                : bookRepository.decrementAvailableQuantityBy(externalId, quantity) > 0;
+    }
+    
+    // Lectura fresca (no la entidad del contexto de persistencia); 0 si el libro no existe
+    private int currentAvailableQuantity(Long externalId) {
+        Integer available = inventoryLedger.isEnabled()
+                ? inventoryLedger.getAvailableQuantity(externalId)
+                : bookRepository.findAvailableQuantityByExternalId(externalId).orElse(null);
+        return available == null ? 0 : available;
+    }
+    
+    /**
+     * Repone varios ejemplares por libro con un UPDATE condicional por libro (cantidad completa
+     * o nada). Devuelve los libros en los que se repuso; el resto quedó sin cambios.
+     */
+    @Transactional
+    public Set<Long> tryIncreaseAvailableQuantities(Map<Long, Integer> quantities) {
+        Cache booksCache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        Set<Long> increased = new HashSet<>();
+        quantities.forEach((externalId, quantity) -> {
+            boolean updated = inventoryLedger.isEnabled()
+                    ? inventoryLedger.tryIncrease(externalId, quantity)
+                    : bookRepository.incrementAvailableQuantityBy(externalId, quantity) > 0;
+            if (updated) {
+                increased.add(externalId);
+                booksCache.evict(externalId);
+                catalogFacetIndex.changeAvailableAfterCommit(externalId, quantity);
+            }
+        });
+        readVersions.booksChangedAfterCommit(increased);
+        return increased;
+    }
+    
+    private void recordSyncedBooks(String mode, SyncResultDTO result) {
+        meterRegistry.counter("libreria.books.sync.books", "mode", mode, "result", "created").increment(result.getCreated());
+        meterRegistry.counter("libreria.books.sync.books", "mode", mode, "result", "updated").increment(result.getUpdated());
+        meterRegistry.counter("libreria.books.sync.books", "mode", mode, "result", "unchanged").increment(result.getUnchanged());
     }
     
-    private void updateBookFromExternal(Book book, ExternalBookDTO dto) {
-        book.setTitle(dto.getTitle());
-        book.setAuthorName(dto.getAuthorName());
-        book.setFirstPublishYear(dto.getFirstPublishYear());
-        book.setEditionCount(dto.getEditionCount());
-        book.setHasFulltext(dto.getHasFulltext());
-        book.setPrice(dto.getPrice());
+    private Flux<ExternalBookDTO> skipCommitted(Flux<ExternalBookDTO> books, SyncCheckpoint checkpoint) {
+        // Se verifica que el último libro confirmado siga en la misma posición del flujo;
+        // si la API cambió el orden, saltear por posición podría perder libros.
+        return books.skip(checkpoint.getProcessedCount() - 1)
+                .switchOnFirst((signal, flux) -> {
+                    ExternalBookDTO lastCommitted = signal.get();
+                    if (signal.hasValue() && !checkpoint.getLastExternalId().equals(lastCommitted.getId())) {
+                        checkpoint.setLastExternalId(null);
+                        checkpoint.setProcessedCount(0L);
+                        syncCheckpointRepository.save(checkpoint);
+                        return Flux.error(new RuntimeException(
+                                "El catálogo externo cambió desde el último checkpoint; "
+                                        + "la próxima sincronización empezará desde el principio"));
+                    }
+                    return flux.skip(1);
+                });
     }
     
-    private BookResponseDTO convertToDTO(Book book) {
+    BookResponseDTO convertToDTO(Book book) {
         BookResponseDTO dto = new BookResponseDTO();
         dto.setExternalId(book.getExternalId());
         dto.setTitle(book.getTitle());
-        dto.setAuthorName(book.getAuthorName());
+        // Copia fuera de la colección de Hibernate: el DTO puede quedar en caché después de cerrar la sesión
+        dto.setAuthorName(book.getAuthorName() == null ? null : new ArrayList<>(book.getAuthorName()));
         dto.setFirstPublishYear(book.getFirstPublishYear());
         dto.setEditionCount(book.getEditionCount());
         dto.setHasFulltext(book.getHasFulltext());
         dto.setPrice(book.getPrice());
         dto.setStockQuantity(book.getStockQuantity());
-        dto.setAvailableQuantity(book.getAvailableQuantity());
+        dto.setAvailableQuantity(getAvailableQuantity(book));
         return dto;
     }
 }
@@ -0,0 +1,176 @@
+package com.example.libreria.service;
+
+import com.example.libreria.config.CacheConfig;
+import com.example.libreria.dto.ExternalBookDTO;
+import com.example.libreria.dto.SyncResultDTO;
+import com.example.libreria.model.Book;
+import com.example.libreria.model.SyncCheckpoint;
+import com.example.libreria.repository.BookRepository;
+import com.example.libreria.repository.SyncCheckpointRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookSyncWriter {
+    
+    private static final int INITIAL_STOCK = 10;
+    
+    private final BookRepository bookRepository;
+    private final SyncCheckpointRepository syncCheckpointRepository;
+    private final EntityManager entityManager;
+    private final CacheManager cacheManager;
+    private final BookSearchIndex bookSearchIndex;
+    private final CatalogFacetIndex catalogFacetIndex;
+    private final ReadVersions readVersions;
+    
+    /**
+     * Escribe un bloque de libros externos: una sola consulta para traer los existentes,
+     * inserciones y actualizaciones en lote JDBC, y limpieza del contexto de persistencia
+     * para que la memoria no crezca con el tamaño del catálogo.
+     */
+    @Transactional
+    public SyncResultDTO writeChunk(List<ExternalBookDTO> chunk) {
+        // Si la API repite un ID dentro del bloque nos quedamos con la última versión
+        Map<Long, ExternalBookDTO> incoming = new LinkedHashMap<>();
+        for (ExternalBookDTO externalBook : chunk) {
+            incoming.put(externalBook.getId(), externalBook);
+        }
+        
+        Map<Long, Book> existingBooks = bookRepository.findByExternalIdIn(incoming.keySet()).stream()
+                .collect(Collectors.toMap(Book::getExternalId, Function.identity()));
+        
+        List<Book> newBooks = new ArrayList<>();
+        List<Book> updatedBooks = new ArrayList<>();
+        Cache booksCache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        int updated = 0;
+        int unchanged = 0;
+        for (ExternalBookDTO externalBook : incoming.values()) {
+            String fingerprint = fingerprint(externalBook);
+            Book existingBook = existingBooks.get(externalBook.getId());
+            if (existingBook == null) {
+                Book newBook = convertToBook(externalBook);
+                newBook.setStockQuantity(INITIAL_STOCK);
+                newBook.setAvailableQuantity(INITIAL_STOCK);
+                newBook.setContentHash(fingerprint);
+                newBook.markNew();
+                newBooks.add(newBook);
+            } else if (fingerprint.equals(existingBook.getContentHash())) {
+                // Sin cambios: no se toca la entidad, así que el flush no genera ningún UPDATE
+                unchanged++;
+            } else {
+                // El libro está gestionado: el dirty checking genera el UPDATE en el flush
+                updateBookFromExternal(existingBook, externalBook);
+                existingBook.setContentHash(fingerprint);
+                if (booksCache != null) {
+                    // Se aplica después del commit del bloque (caché transaccional)
+                    booksCache.evict(existingBook.getExternalId());
+                }
+                updatedBooks.add(existingBook);
+                updated++;
+            }
+        }
+        
+        bookRepository.saveAll(newBooks);
+        // Antes del clear: los autores de los libros existentes ya están cargados
+        bookSearchIndex.indexAfterCommit(newBooks);
+        bookSearchIndex.indexAfterCommit(updatedBooks);
+        catalogFacetIndex.indexAfterCommit(newBooks);
+        catalogFacetIndex.indexAfterCommit(updatedBooks);
+        readVersions.booksChangedAfterCommit(Stream.concat(newBooks.stream(), updatedBooks.stream())
+                .map(Book::getExternalId)
+                .toList());
+        if (!updatedBooks.isEmpty()) {
+            // Las reservas muestran el título del libro
+            readVersions.allReservationsChangedAfterCommit();
+        }
+        entityManager.flush();
+        entityManager.clear();
+        
+        log.info("Synchronized chunk of {} books: {} created, {} updated, {} unchanged",
+                chunk.size(), newBooks.size(), updated, unchanged);
+        return new SyncResultDTO(newBooks.size(), updated, unchanged, false);
+    }
+    
+    /**
+     * Igual que {@link #writeChunk(List)} pero guarda el checkpoint en la misma transacción,
+     * así el checkpoint nunca apunta a libros que no se confirmaron.
+     */
+    @Transactional
+    public SyncResultDTO writeChunk(List<ExternalBookDTO> chunk, String checkpointName, long processedCount) {
+        SyncResultDTO result = writeChunk(chunk);
+        
+        SyncCheckpoint checkpoint = syncCheckpointRepository.findById(checkpointName)
+                .orElseGet(() -> new SyncCheckpoint(checkpointName));
+        checkpoint.setLastExternalId(chunk.get(chunk.size() - 1).getId());
+        checkpoint.setProcessedCount(processedCount);
+        syncCheckpointRepository.save(checkpoint);
+        return result;
+    }
+    
+    private Book convertToBook(ExternalBookDTO dto) {
+        Book book = new Book();
+        book.setExternalId(dto.getId());
+        book.setTitle(dto.getTitle());
+        book.setAuthorName(dto.getAuthorName());
+        book.setFirstPublishYear(dto.getFirstPublishYear());
+        book.setEditionCount(dto.getEditionCount());
+        book.setHasFulltext(dto.getHasFulltext());
+        book.setPrice(dto.getPrice());
+        return book;
+    }
+    
+    // Huella de los campos externos. Los valores se separan con un carácter de control para que
+    // ("ab", "c") y ("a", "bc") no den la misma huella; el precio se normaliza porque la base
+    // lo devuelve con escala 2.
+    static String fingerprint(ExternalBookDTO dto) {
+        StringBuilder content = new StringBuilder();
+        content.append(dto.getTitle()).append('\u001F');
+        if (dto.getAuthorName() != null) {
+            content.append(String.join("\u001E", dto.getAuthorName()));
+        }
+        content.append('\u001F').append(dto.getFirstPublishYear())
+                .append('\u001F').append(dto.getEditionCount())
+                .append('\u001F').append(dto.getHasFulltext())
+                .append('\u001F').append(dto.getPrice() == null ? null : dto.getPrice().stripTrailingZeros().toPlainString());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+    
+    private void updateBookFromExternal(Book book, ExternalBookDTO dto) {
+        book.setTitle(dto.getTitle());
+        // Reemplazar la colección borra y reinserta todas sus filas en book_authors.
+        // Se copia porque PersistentBag compara por identidad.
+        List<String> currentAuthors = book.getAuthorName() == null ? List.of() : new ArrayList<>(book.getAuthorName());
+        List<String> incomingAuthors = dto.getAuthorName() == null ? List.of() : dto.getAuthorName();
+        if (!currentAuthors.equals(incomingAuthors)) {
+            book.setAuthorName(dto.getAuthorName());
+        }
+        book.setFirstPublishYear(dto.getFirstPublishYear());
+        book.setEditionCount(dto.getEditionCount());
+        book.setHasFulltext(dto.getHasFulltext());
+        book.setPrice(dto.getPrice());
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.repository.BookRepository;
+import com.example.libreria.repository.ReservationRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exportaciones completas para contabilidad. Cada fila se lee de un Stream JPA y se escribe
+ * directamente en la salida, así la memoria no depende de la cantidad de filas y los primeros
+ * bytes salen apenas llega el primer bloque del cursor.
+ */
+@Service
+@RequiredArgsConstructor
+@Timed("libreria.service")
+public class ExportService {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de exportación no soportado: " + value);
+            }
+        }
+    }
+
+    private static final List<Column<ReservationResponseDTO>> RESERVATION_COLUMNS = List.of(
+            new Column<>("id", ReservationResponseDTO::getId),
+            new Column<>("userId", ReservationResponseDTO::getUserId),
+            new Column<>("userName", ReservationResponseDTO::getUserName),
+            new Column<>("bookExternalId", ReservationResponseDTO::getBookExternalId),
+            new Column<>("bookTitle", ReservationResponseDTO::getBookTitle),
+            new Column<>("rentalDays", ReservationResponseDTO::getRentalDays),
+            new Column<>("startDate", ReservationResponseDTO::getStartDate),
+            new Column<>("expectedReturnDate", ReservationResponseDTO::getExpectedReturnDate),
+            new Column<>("actualReturnDate", ReservationResponseDTO::getActualReturnDate),
+            new Column<>("dailyRate", ReservationResponseDTO::getDailyRate),
+            new Column<>("totalFee", ReservationResponseDTO::getTotalFee),
+            new Column<>("lateFee", ReservationResponseDTO::getLateFee),
+            new Column<>("status", ReservationResponseDTO::getStatus),
+            new Column<>("createdAt", ReservationResponseDTO::getCreatedAt));
+
+    private static final List<Column<BookResponseDTO>> BOOK_COLUMNS = List.of(
+            new Column<>("externalId", BookResponseDTO::getExternalId),
+            new Column<>("title", BookResponseDTO::getTitle),
+            new Column<>("authorName", book -> String.join("; ", book.getAuthorName())),
+            new Column<>("firstPublishYear", BookResponseDTO::getFirstPublishYear),
+            new Column<>("editionCount", BookResponseDTO::getEditionCount),
+            new Column<>("hasFulltext", BookResponseDTO::getHasFulltext),
+            new Column<>("price", BookResponseDTO::getPrice),
+            new Column<>("stockQuantity", BookResponseDTO::getStockQuantity),
+            new Column<>("availableQuantity", BookResponseDTO::getAvailableQuantity));
+
+    private final ReservationRepository reservationRepository;
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final InventoryLedger inventoryLedger;
+
+    /**
+     * Escribe las reservas ordenadas por ID, filtradas por estado y por rango de startDate
+     * (cualquiera de los filtros puede ser null). Devuelve la cantidad de filas escritas.
+     */
+    @Transactional(readOnly = true)
+    public long exportReservations(Format format, Reservation.ReservationStatus status,
+                                   LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        try (Stream<ReservationResponseDTO> rows = reservationRepository.streamResponses(status, from, to)) {
+            return write("reservations", format, rows.iterator(), RESERVATION_COLUMNS, out);
+        }
+    }
+
+    /** Escribe el catálogo completo ordenado por externalId. Devuelve la cantidad de libros escritos. */
+    @Transactional(readOnly = true)
+    public long exportBooks(Format format, OutputStream out) throws IOException {
+        try (Stream<Object[]> rows = bookRepository.streamBookAuthorRows()) {
+            Iterator<BookResponseDTO> books = new BookGroupingIterator(rows.iterator());
+            if (inventoryLedger.isEnabled()) {
+                books = new CurrentAvailabilityIterator(books);
+            }
+            return write("books", format, books, BOOK_COLUMNS, out);
+        }
+    }
+
+    private <T> long write(String type, Format format, Iterator<T> rows,
+                           List<Column<T>> columns, OutputStream out) throws IOException {
+        long count = switch (format) {
+            case NDJSON -> writeNdjson(rows, out);
+            case CSV -> writeCsv(rows, columns, out);
+        };
+        meterRegistry.counter("libreria.export.rows", "type", type, "format", format.name().toLowerCase(Locale.ROOT))
+                .increment(count);
+        return count;
+    }
+
+    private long writeNdjson(Iterator<?> rows, OutputStream out) throws IOException {
+        // Sin flush por fila: el generador ya tiene su propio buffer y lo vacía a medida que se llena
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Cada valor termina en '\n'; sin esto Jackson antepone un espacio entre valores raíz
+            generator.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                writer.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private <T> long writeCsv(Iterator<T> rows, List<Column<T>> columns, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvLine(writer, columns.stream().map(Column::name).toList());
+        long count = 0;
+        List<Object> values = new ArrayList<>(columns.size());
+        while (rows.hasNext()) {
+            T row = rows.next();
+            values.clear();
+            for (Column<T> column : columns) {
+                values.add(column.value().apply(row));
+            }
+            writeCsvLine(writer, values);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    // RFC 4180: se entrecomillan los valores con separador, comillas o saltos de línea
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            String text = value == null ? ""
+                    : value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    // Con el ledger activo available_quantity puede atrasarse hasta un flush: se toma la de sus contadores
+    private final class CurrentAvailabilityIterator implements Iterator<BookResponseDTO> {
+
+        private final Iterator<BookResponseDTO> books;
+
+        private CurrentAvailabilityIterator(Iterator<BookResponseDTO> books) {
+            this.books = books;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return books.hasNext();
+        }
+
+        @Override
+        public BookResponseDTO next() {
+            BookResponseDTO book = books.next();
+            book.setAvailableQuantity(inventoryLedger.getAvailableQuantity(book.getExternalId(), book.getAvailableQuantity()));
+            return book;
+        }
+    }
+
+    // Las filas llegan ordenadas por libro: se junta cada tramo consecutivo con el mismo externalId
+    private static final class BookGroupingIterator implements Iterator<BookResponseDTO> {
+
+        private final Iterator<Object[]> rows;
+        private Object[] pending;
+
+        private BookGroupingIterator(Iterator<Object[]> rows) {
+            this.rows = rows;
+            this.pending = rows.hasNext() ? rows.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pending != null;
+        }
+
+        @Override
+        public BookResponseDTO next() {
+            if (pending == null) {
+                throw new NoSuchElementException();
+            }
+            Object[] first = pending;
+            List<String> authors = new ArrayList<>();
+            Object[] row = first;
+            while (row != null && row[0].equals(first[0])) {
+                if (row[8] != null) {
+                    authors.add((String) row[8]);
+                }
+                row = rows.hasNext() ? rows.next() : null;
+            }
+            pending = row;
+            return new BookResponseDTO((Long) first[0], (String) first[1], authors, (Integer) first[2],
+                    (Integer) first[3], (Boolean) first[4], (BigDecimal) first[5], (Integer) first[6],
+                    (Integer) first[7]);
+        }
+    }
+}
@@ -1,40 +1,76 @@
 package com.example.libreria.service;
 import com.example.libreria.dto.ExternalBookDTO;
+import com.example.libreria.dto.ExternalCatalogDTO;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
 public class ExternalBookService {
     // TODO: completar llamada a la API externa (ver bien todo el proyecto...)
 
+    private static final String REQUESTS_METRIC = "libreria.external.requests";
+
     private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
     
     @Value("${external.api.books.url}")
     private String externalApiUrl;
     
-    public ExternalBookService(WebClient webClient) {
+    public ExternalBookService(WebClient webClient, MeterRegistry meterRegistry) {
         this.webClient = webClient;
+        this.meterRegistry = meterRegistry;
     }
     
-    public List<ExternalBookDTO> fetchAllBooks() {
+    // Pedido condicional: si el catálogo no cambió desde la última sincronización la API responde 304
+    // y no se descarga ni decodifica nada.
+    @Timed(value = REQUESTS_METRIC, histogram = true)
+    public ExternalCatalogDTO fetchAllBooksIfModified(String etag, String lastModified) {
         try {
-            log.info("Fetching books from external API with WebClient: {}", externalApiUrl);
+            log.info("Fetching books from external API with WebClient: {} (If-None-Match: {}, If-Modified-Since: {})",
+                    externalApiUrl, etag, lastModified);
 
             return webClient.get()
                     .uri(externalApiUrl)
-                    .retrieve()
-                    .bodyToFlux(ExternalBookDTO.class)
-                    .collectList()
+                    .headers(headers -> {
+                        if (etag != null) {
+                            headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+                        }
+                        if (lastModified != null) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+                        }
+                    })
+                    .exchangeToMono(response -> {
+                        if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                            return Mono.just(new ExternalCatalogDTO(List.of(), true, etag, lastModified));
+                        }
+                        if (response.statusCode().isError()) {
+                            return response.createError();
+                        }
+                        HttpHeaders headers = response.headers().asHttpHeaders();
+                        String newEtag = headers.getETag();
+                        String newLastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+                        return response.bodyToFlux(ExternalBookDTO.class)
+                                .collectList()
+                                .map(books -> new ExternalCatalogDTO(books, false, newEtag, newLastModified));
+                    })
                     .block();
         } catch (Exception e) {
             log.error("Error fetching books from external API: {}", e.getMessage(), e);
@@ -42,6 +78,35 @@ public class ExternalBookService {
         }
     }
 
+    // Devuelve los libros a medida que se decodifican del arreglo JSON, sin juntarlos en memoria.
+    // La lectura del socket avanza según la demanda del suscriptor (backpressure).
+    // No lleva @Timed: el método solo arma el Flux. El timer (mismo nombre y tags que los demás
+    // métodos) mide desde la suscripción hasta que el flujo termina, falla o se cancela.
+    public Flux<ExternalBookDTO> streamAllBooks() {
+        log.info("Streaming books from external API with WebClient: {}", externalApiUrl);
+
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicReference<String> exception = new AtomicReference<>("none");
+            return webClient.get()
+                    .uri(externalApiUrl)
+                    .retrieve()
+                    .bodyToFlux(ExternalBookDTO.class)
+                    .doOnError(e -> exception.set(e.getClass().getSimpleName()))
+                    .doFinally(signal -> sample.stop(Timer.builder(REQUESTS_METRIC)
+                            .tags("class", ExternalBookService.class.getName(),
+                                    "method", "streamAllBooks",
+                                    "exception", exception.get())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry)));
+        })
+                .onErrorMap(e -> {
+                    log.error("Error streaming books from external API: {}", e.getMessage(), e);
+                    return new RuntimeException("Error al obtener libros de la API externa: " + e.getMessage(), e);
+                });
+    }
+
+    @Timed(value = REQUESTS_METRIC, histogram = true)
     public ExternalBookDTO fetchBookById(Long id) {
         try {
             String url = externalApiUrl + "/" + id;
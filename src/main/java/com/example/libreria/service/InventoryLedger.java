@@ -0,0 +1,223 @@
+package com.example.libreria.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disponibilidad por libro en memoria (opcional, inventory.ledger.enabled). Con el ledger activo
+ * es la fuente de verdad para reservar y devolver: cada operación es un CAS sobre un contador, sin
+ * tocar la fila de books. Los cambios se acumulan como deltas por libro y se escriben en
+ * books.available_quantity en un UPDATE por lote cada flush-interval-ms, así un título muy
+ * reservado recibe un UPDATE por intervalo en lugar de uno por reserva.
+ *
+ * Al iniciar se recalcula la disponibilidad como stock_quantity menos reservas activas, lo que
+ * corrige los deltas que no llegaron a escribirse si la aplicación se detuvo sin hacer el flush.
+ * Mientras tanto la disponibilidad leída de la base puede atrasarse hasta un intervalo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryLedger implements SmartInitializingSingleton {
+
+    private static final String REBUILD = "UPDATE books b SET available_quantity = stock_quantity - " +
+            "(SELECT COUNT(*) FROM reservations r WHERE r.book_external_id = b.external_id " +
+            "AND r.status IN ('ACTIVE', 'OVERDUE'))";
+    private static final String LOAD_ALL = "SELECT external_id, stock_quantity, available_quantity FROM books";
+    private static final String LOAD_ONE = LOAD_ALL + " WHERE external_id = ?";
+    private static final String APPLY_DELTA =
+            "UPDATE books SET available_quantity = available_quantity + ? WHERE external_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean enabled;
+
+    // Stock en los 32 bits altos y disponible en los bajos: un solo CAS mantiene ambos consistentes
+    private final ConcurrentHashMap<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+    // Cambios de available_quantity todavía no escritos en la base
+    private final ConcurrentHashMap<Long, AtomicInteger> pendingDeltas = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /** Recalcula la disponibilidad en la base y recarga los contadores. */
+    public void rebuild() {
+        int corrected = jdbcTemplate.update(REBUILD);
+        counts.clear();
+        pendingDeltas.clear();
+        jdbcTemplate.query(LOAD_ALL, rs -> {
+            counts.put(rs.getLong(1), new AtomicLong(pack(rs.getInt(2), rs.getInt(3))));
+        });
+        log.info("Inventory ledger loaded {} books ({} rows recalculated)", counts.size(), corrected);
+    }
+
+    /** Descuenta quantity ejemplares si hay disponibles; false si no alcanzan o el libro no existe. */
+    public boolean tryDecrease(Long externalId, int quantity) {
+        AtomicLong count = count(externalId);
+        if (count == null) {
+            return false;
+        }
+        long current;
+        do {
+            current = count.get();
+            if (available(current) < quantity) {
+                return false;
+            }
+        } while (!count.compareAndSet(current, pack(stock(current), available(current) - quantity)));
+        recordChange(externalId, 0, -quantity);
+        return true;
+    }
+
+    /** Repone quantity ejemplares sin superar el stock; false si lo superaría o el libro no existe. */
+    public boolean tryIncrease(Long externalId, int quantity) {
+        AtomicLong count = count(externalId);
+        if (count == null) {
+            return false;
+        }
+        long current;
+        do {
+            current = count.get();
+            if (available(current) + quantity > stock(current)) {
+                return false;
+            }
+        } while (!count.compareAndSet(current, pack(stock(current), available(current) + quantity)));
+        recordChange(externalId, 0, quantity);
+        return true;
+    }
+
+    /**
+     * Cambia el stock manteniendo los ejemplares reservados. Devuelve la cantidad reservada, o -1
+     * si el nuevo stock es menor. La columna stock_quantity la escribe quien llama; acá solo se
+     * encola el cambio de disponibilidad.
+     */
+    public int updateStock(Long externalId, int stockQuantity) {
+        AtomicLong count = count(externalId);
+        if (count == null) {
+            return -1;
+        }
+        long current;
+        int reserved;
+        do {
+            current = count.get();
+            reserved = stock(current) - available(current);
+            if (stockQuantity < reserved) {
+                return -1;
+            }
+        } while (!count.compareAndSet(current, pack(stockQuantity, stockQuantity - reserved)));
+        recordChange(externalId, stockQuantity - stock(current), stockQuantity - reserved - available(current));
+        return reserved;
+    }
+
+    /** Disponibilidad actual en memoria, o null si el libro no existe. */
+    public Integer getAvailableQuantity(Long externalId) {
+        AtomicLong count = count(externalId);
+        return count == null ? null : available(count.get());
+    }
+
+    /**
+     * Disponibilidad para una lectura que ya trae la de la base: la de los contadores si el libro ya
+     * se cargó; si no, la leída (sin deltas pendientes la fila está al día). No consulta la base, así
+     * que también sirve dentro de un Flux.
+     */
+    public Integer getAvailableQuantity(Long externalId, Integer stored) {
+        AtomicLong count = counts.get(externalId);
+        return count == null ? stored : available(count.get());
+    }
+
+    /**
+     * Escribe los deltas acumulados en un único lote. Si falla, los deltas vuelven a la cola
+     * y se reintentan en el próximo flush.
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:1000}")
+    public int flush() {
+        if (!enabled) {
+            return 0;
+        }
+        Map<Long, Integer> drained = new LinkedHashMap<>();
+        pendingDeltas.forEach((externalId, delta) -> {
+            int value = delta.getAndSet(0);
+            if (value != 0) {
+                drained.put(externalId, value);
+            }
+        });
+        if (drained.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> arguments = new ArrayList<>(drained.size());
+        drained.forEach((externalId, delta) -> arguments.add(new Object[]{delta, externalId}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(APPLY_DELTA, arguments));
+        } catch (RuntimeException e) {
+            drained.forEach(this::addPendingDelta);
+            log.warn("Inventory ledger flush failed, {} books will be retried", drained.size(), e);
+            return 0;
+        }
+        meterRegistry.counter("libreria.inventory.flushed.books").increment(drained.size());
+        return drained.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Carga perezosa para libros creados después del arranque (por ejemplo, por la sincronización):
+    // sin deltas pendientes, la fila de la base está al día
+    private AtomicLong count(Long externalId) {
+        return counts.computeIfAbsent(externalId, id -> jdbcTemplate.query(LOAD_ONE,
+                rs -> rs.next() ? new AtomicLong(pack(rs.getInt(2), rs.getInt(3))) : null, id));
+    }
+
+    private void recordChange(Long externalId, int stockDelta, int availableDelta) {
+        addPendingDelta(externalId, availableDelta);
+        // Si la transacción que pidió el cambio se revierte (por ejemplo, falla el INSERT de la
+        // reserva), se deshace en memoria y el delta opuesto se cancela en el próximo flush
+        TransactionHooks.afterRollback(() -> {
+            counts.get(externalId).getAndUpdate(
+                    current -> pack(stock(current) - stockDelta, available(current) - availableDelta));
+            addPendingDelta(externalId, -availableDelta);
+        });
+    }
+
+    private void addPendingDelta(Long externalId, int delta) {
+        pendingDeltas.computeIfAbsent(externalId, id -> new AtomicInteger()).addAndGet(delta);
+    }
+
+    private static long pack(int stock, int available) {
+        return ((long) stock << 32) | (available & 0xFFFFFFFFL);
+    }
+
+    private static int stock(long count) {
+        return (int) (count >>> 32);
+    }
+
+    private static int available(long count) {
+        return (int) count;
+    }
+}
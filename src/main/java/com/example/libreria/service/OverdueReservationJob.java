@@ -0,0 +1,39 @@
+package com.example.libreria.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OverdueReservationJob {
+    
+    private final ReservationService reservationService;
+    
+    @Value("${reservations.overdue.batch-size:500}")
+    private int batchSize = 500;
+    
+    /**
+     * Pasa a OVERDUE las reservas activas vencidas, en lotes de batchSize con un UPDATE
+     * por lote, para no bloquear la tabla completa ni armar una transacción enorme.
+     */
+    @Scheduled(cron = "${reservations.overdue.cron:0 5 * * * *}")
+    public int markOverdueReservations() {
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        int marked;
+        do {
+            marked = reservationService.markOverdueBatch(today, batchSize);
+            total += marked;
+        } while (marked > 0);
+        if (total > 0) {
+            log.info("Marked {} reservations as overdue", total);
+        }
+        return total;
+    }
+}
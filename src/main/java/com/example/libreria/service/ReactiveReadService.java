@@ -0,0 +1,77 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.dto.UserResponseDTO;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.repository.ReactiveReadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Consultas de libros, usuarios y reservas por R2DBC. Los listados no se paginan: se emiten
+ * completos a partir del cursor after, al ritmo en que el cliente los consume.
+ * Las escrituras siguen en BookService, UserService y ReservationService (JPA).
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveReadService {
+
+    private final ReactiveReadRepository reactiveReadRepository;
+    private final InventoryLedger inventoryLedger;
+
+    public Flux<BookResponseDTO> streamBooks(Long afterExternalId) {
+        return reactiveReadRepository.findBooksAfter(cursor(afterExternalId))
+                .map(this::withCurrentAvailability);
+    }
+
+    public Mono<BookResponseDTO> getBookByExternalId(Long externalId) {
+        return reactiveReadRepository.findBookByExternalId(externalId)
+                .map(this::withCurrentAvailability)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Libro no encontrado con ID externo: " + externalId)));
+    }
+
+    public Flux<UserResponseDTO> streamUsers(Long afterId) {
+        return reactiveReadRepository.findUsersAfter(cursor(afterId));
+    }
+
+    public Mono<UserResponseDTO> getUserById(Long id) {
+        return reactiveReadRepository.findUserById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Usuario no encontrado con ID: " + id)));
+    }
+
+    public Flux<ReservationResponseDTO> streamReservations(Long afterId) {
+        return reactiveReadRepository.findReservationsAfter(cursor(afterId));
+    }
+
+    public Mono<ReservationResponseDTO> getReservationById(Long id) {
+        return reactiveReadRepository.findReservationById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Reserva no encontrada con ID: " + id)));
+    }
+
+    public Flux<ReservationResponseDTO> streamReservationsByUserId(Long userId, Long afterId) {
+        return reactiveReadRepository.findReservationsByUserIdAfter(userId, cursor(afterId));
+    }
+
+    public Flux<ReservationResponseDTO> streamActiveReservations(Long afterId) {
+        return reactiveReadRepository.findReservationsByStatusAfter(Reservation.ReservationStatus.ACTIVE, cursor(afterId));
+    }
+
+    public Flux<ReservationResponseDTO> streamOverdueReservations(Long afterId) {
+        return reactiveReadRepository.findReservationsByStatusAfter(Reservation.ReservationStatus.OVERDUE, cursor(afterId));
+    }
+
+    // Con el ledger activo available_quantity puede atrasarse hasta un flush; leer sus contadores no bloquea
+    private BookResponseDTO withCurrentAvailability(BookResponseDTO book) {
+        if (inventoryLedger.isEnabled()) {
+            book.setAvailableQuantity(inventoryLedger.getAvailableQuantity(book.getExternalId(), book.getAvailableQuantity()));
+        }
+        return book;
+    }
+
+    private long cursor(Long afterId) {
+        return afterId == null ? 0L : afterId;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.libreria.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versiones en memoria de las lecturas que los clientes consultan seguido (catálogo, cada libro y
+ * las reservas de cada usuario), para responder GET condicionales con ETag y Last-Modified sin
+ * consultar la base ni serializar nada cuando no hubo cambios.
+ *
+ * Cada cambio toma el siguiente valor de un único reloj, así que una versión nunca se repite.
+ * Las versiones avanzan después del commit: quien lee la versión antes de consultar la base nunca
+ * recibe datos viejos con una versión nueva (a lo sumo datos nuevos con la versión anterior, y el
+ * próximo GET los vuelve a pedir). El ETag incluye el instante de arranque, así que los ETags de
+ * una ejecución anterior no coinciden después de reiniciar. Con varias instancias cada una tiene
+ * sus propias versiones, igual que los índices en memoria del catálogo.
+ */
+@Component
+public class ReadVersions {
+
+    /** ETag fuerte (con comillas) y fecha de modificación en milisegundos. */
+    public record Stamp(String etag, long lastModified) {
+    }
+
+    private record Version(long value, long modifiedAt) {
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Version initial = new Version(0, System.currentTimeMillis());
+    private final AtomicLong clock = new AtomicLong();
+
+    private volatile Version catalog = initial;
+    private final Map<Long, Version> books = new ConcurrentHashMap<>();
+    // Cambios que afectan las reservas de todos los usuarios (títulos de libros, estado OVERDUE)
+    private volatile Version allReservations = initial;
+    private final Map<Long, Version> userReservations = new ConcurrentHashMap<>();
+
+    /** Versión de GET /api/books: cambia con cualquier libro. */
+    public Stamp catalog() {
+        return stamp(catalog);
+    }
+
+    /** Versión de GET /api/books/{externalId}. */
+    public Stamp book(Long externalId) {
+        return stamp(books.getOrDefault(externalId, initial));
+    }
+
+    /** Versión de GET /api/reservations/user/{userId}. */
+    public Stamp reservations(Long userId) {
+        Version all = allReservations;
+        Version user = userReservations.getOrDefault(userId, initial);
+        return new Stamp("\"" + epoch + "-" + all.value() + "-" + user.value() + "\"",
+                Math.max(all.modifiedAt(), user.modifiedAt()));
+    }
+
+    /** Sincronización o cambio de stock o disponibilidad de estos libros. */
+    public void booksChangedAfterCommit(Collection<Long> externalIds) {
+        if (externalIds.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            Version version = next();
+            externalIds.forEach(externalId -> books.put(externalId, version));
+            catalog = version;
+        });
+    }
+
+    public void bookChangedAfterCommit(Long externalId) {
+        TransactionHooks.afterCommit(() -> {
+            Version version = next();
+            books.put(externalId, version);
+            catalog = version;
+        });
+    }
+
+    /** Alta, devolución o cambio de datos del usuario de estas reservas. */
+    public void reservationsChangedAfterCommit(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            Version version = next();
+            userIds.forEach(userId -> userReservations.put(userId, version));
+        });
+    }
+
+    /** Cambio que puede afectar las reservas de cualquier usuario. */
+    public void allReservationsChangedAfterCommit() {
+        TransactionHooks.afterCommit(() -> allReservations = next());
+    }
+
+    private Version next() {
+        return new Version(clock.incrementAndGet(), System.currentTimeMillis());
+    }
+
+    private Stamp stamp(Version version) {
+        return new Stamp("\"" + epoch + "-" + version.value() + "\"", version.modifiedAt());
+    }
+}
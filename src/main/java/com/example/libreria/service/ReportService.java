@@ -0,0 +1,141 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.ReportDTO;
+import com.example.libreria.dto.ReportRowDTO;
+import com.example.libreria.dto.RevenueTotalsDTO;
+import com.example.libreria.model.DailyRevenue;
+import com.example.libreria.model.DailyRevenueId;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.repository.DailyRevenueRepository;
+import com.example.libreria.repository.ReservationRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Reportes de recaudación y multas sobre la tabla daily_revenue. Las reservas y devoluciones
+ * suman sus importes a esa tabla dentro de su propia transacción, así los totales confirmados
+ * siempre coinciden con las reservas confirmadas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Timed("libreria.service")
+public class ReportService implements SmartInitializingSingleton {
+
+    public enum GroupBy {
+        DAY, BOOK, USER;
+
+        public static GroupBy of(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Agrupación no soportada: " + value);
+            }
+        }
+    }
+
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final ReservationRepository reservationRepository;
+
+    // Una base con reservas anteriores a la tabla de totales se completa una sola vez al iniciar
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (dailyRevenueRepository.count() == 0 && reservationRepository.count() > 0) {
+            log.info("Built daily revenue rollup with {} rows", dailyRevenueRepository.rebuild());
+        }
+    }
+
+    /** Tarifa base de las reservas que empiezan en el rango. */
+    @Transactional(readOnly = true)
+    public ReportDTO getRevenue(LocalDate from, LocalDate to, GroupBy groupBy) {
+        return report(from, to, groupBy, totals -> totals.getReservations() > 0,
+                RevenueTotalsDTO::getReservations, RevenueTotalsDTO::getRevenue);
+    }
+
+    /** Multas de las devoluciones tardías del rango. */
+    @Transactional(readOnly = true)
+    public ReportDTO getLateFees(LocalDate from, LocalDate to, GroupBy groupBy) {
+        return report(from, to, groupBy, totals -> totals.getLateReturns() > 0,
+                RevenueTotalsDTO::getLateReturns, RevenueTotalsDTO::getLateFees);
+    }
+
+    /** Suma las reservas recién creadas a sus totales diarios; participa de la transacción que las crea. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordReservations(Collection<Reservation> reservations) {
+        Map<DailyRevenueId, DailyRevenue> deltas = new LinkedHashMap<>();
+        for (Reservation reservation : reservations) {
+            DailyRevenue delta = delta(deltas, reservation, reservation.getStartDate());
+            delta.setReservations(delta.getReservations() + 1);
+            if (reservation.getTotalFee() != null) {
+                delta.setRevenue(delta.getRevenue().add(reservation.getTotalFee()));
+            }
+        }
+        dailyRevenueRepository.addAll(deltas.values());
+    }
+
+    /** Suma las devoluciones recién registradas a sus totales diarios; participa de la transacción que las registra. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordReturns(Collection<Reservation> reservations) {
+        Map<DailyRevenueId, DailyRevenue> deltas = new LinkedHashMap<>();
+        for (Reservation reservation : reservations) {
+            DailyRevenue delta = delta(deltas, reservation, reservation.getActualReturnDate());
+            delta.setReturns(delta.getReturns() + 1);
+            if (reservation.getActualReturnDate().isAfter(reservation.getExpectedReturnDate())) {
+                delta.setLateReturns(delta.getLateReturns() + 1);
+                delta.setLateFees(delta.getLateFees().add(reservation.getLateFee()));
+            }
+        }
+        dailyRevenueRepository.addAll(deltas.values());
+    }
+
+    private static DailyRevenue delta(Map<DailyRevenueId, DailyRevenue> deltas, Reservation reservation, LocalDate date) {
+        DailyRevenueId id = new DailyRevenueId(date, reservation.getBook().getExternalId(), reservation.getUser().getId());
+        return deltas.computeIfAbsent(id, key -> {
+            DailyRevenue delta = new DailyRevenue();
+            delta.setId(key);
+            return delta;
+        });
+    }
+
+    private ReportDTO report(LocalDate from, LocalDate to, GroupBy groupBy, Predicate<RevenueTotalsDTO> include,
+                             Function<RevenueTotalsDTO, Long> count, Function<RevenueTotalsDTO, BigDecimal> amount) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        List<RevenueTotalsDTO> totals = switch (groupBy) {
+            case DAY -> dailyRevenueRepository.findTotalsByDay(from, to);
+            case BOOK -> dailyRevenueRepository.findTotalsByBook(from, to);
+            case USER -> dailyRevenueRepository.findTotalsByUser(from, to);
+        };
+        List<ReportRowDTO> rows = totals.stream()
+                .filter(include)
+                .map(row -> new ReportRowDTO(row.getKey(), row.getLabel(), count.apply(row), amount.apply(row)))
+                .toList();
+        if (groupBy != GroupBy.DAY) {
+            // Por libro o usuario, primero los de mayor importe
+            rows = rows.stream()
+                    .sorted(Comparator.comparing(ReportRowDTO::getAmount).reversed()
+                            .thenComparing(row -> Long.valueOf(row.getKey())))
+                    .toList();
+        }
+        long totalCount = rows.stream().mapToLong(ReportRowDTO::getCount).sum();
+        BigDecimal total = rows.stream().map(ReportRowDTO::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new ReportDTO(from, to, groupBy.name().toLowerCase(Locale.ROOT), totalCount, total, rows);
+    }
+}
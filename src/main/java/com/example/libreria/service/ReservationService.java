@@ -4,81 +4,174 @@ import com.example.libreria.dto.*;
 import com.example.libreria.model.Book;
 import com.example.libreria.model.Reservation;
 import com.example.libreria.model.User;
-import com.example.libreria.repository.BookRepository;
 import com.example.libreria.repository.ReservationRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed("libreria.service")
 public class ReservationService {
     
     private static final BigDecimal LATE_FEE_PERCENTAGE = new BigDecimal("0.15"); // 15% por día
     
     private final ReservationRepository reservationRepository;
-    private final BookRepository bookRepository;
     private final BookService bookService;
     private final UserService userService;
-    private final ModelMapper modelMapper;
+    private final MeterRegistry meterRegistry;
+    private final Validator validator;
+    private final ReportService reportService;
+    private final ReadVersions readVersions;
+    
+    @Value("${reservations.batch.max-size:1000}")
+    private int maxBatchSize = 1000;
     
     @Transactional
     public ReservationResponseDTO createReservation(ReservationRequestDTO requestDTO) {
 
         // TODO: Implementar la creación de una reserva
-        // Validar que el usuario existe
-        UserResponseDTO userDTO = userService.getUserById(requestDTO.getUserId());
-        if (userDTO == null) {
-            throw new IllegalArgumentException("El usuario con ID " + requestDTO.getUserId() + " no existe");
-        }
+        // Validar que el usuario y el libro existen. Los datos del libro (título, precio) salen
+        // de la caché de catálogo; la disponibilidad la decide siempre el UPDATE condicional.
+        User user = userService.getUserEntity(requestDTO.getUserId());
+        BookResponseDTO book = bookService.getBookByExternalId(requestDTO.getBookExternalId());
 
-        // Validar que el libro existe y está disponible
-        BookResponseDTO bookDTO = bookService.getBookByExternalId(requestDTO.getBookExternalId());
-        if (bookDTO == null) {
-            throw new IllegalArgumentException("El libro con externalId " + requestDTO.getBookExternalId() + " no existe");
-        }
-
-        if (bookDTO.getAvailableQuantity() <= 0) {
+        // Chequeo de disponibilidad y descuento en un único UPDATE condicional,
+        // así dos reservas simultáneas no pueden llevarse el último ejemplar
+        if (!bookService.tryDecreaseAvailableQuantity(requestDTO.getBookExternalId())) {
+            meterRegistry.counter("libreria.reservations.rejected", "reason", "no_stock").increment();
             //acá haciendo el testing al final me di cuenta que puse Illegalstate y lo dejo asi
             // para no levantar de nuevo el compose
             throw new IllegalStateException("El libro no está disponibke ");
         }
-        User userEntity = modelMapper.map(userDTO, User.class);
-        Book bookEntity = modelMapper.map(bookDTO, Book.class);
         // Crear la reserva
         Reservation reservation = new Reservation();
-        reservation.setUser(userEntity);
-        reservation.setBook(bookEntity);
+        reservation.setUser(user);
+        reservation.setBook(bookService.getBookReference(requestDTO.getBookExternalId()));
         reservation.setRentalDays(requestDTO.getRentalDays());
         reservation.setStartDate(requestDTO.getStartDate());
 
         LocalDate expectedReturnDate = requestDTO.getStartDate().plusDays(requestDTO.getRentalDays());
         reservation.setExpectedReturnDate(expectedReturnDate);
 
-        // Reducir la cantidad disponible
-        reservation.setDailyRate(bookDTO.getPrice());
+        reservation.setDailyRate(book.getPrice());
         reservation.setTotalFee(
-                calculateTotalFee(bookDTO.getPrice(), requestDTO.getRentalDays())
+                calculateTotalFee(book.getPrice(), requestDTO.getRentalDays())
         );
         reservation.setStatus(Reservation.ReservationStatus.ACTIVE);
 
         reservation = reservationRepository.save(reservation);
-
-        bookDTO.setAvailableQuantity(bookDTO.getAvailableQuantity() - 1);
-        bookRepository.save(modelMapper.map(bookDTO, Book.class));
-        return convertToDTO(reservation);
+        reportService.recordReservations(List.of(reservation));
+        readVersions.reservationsChangedAfterCommit(List.of(user.getId()));
+        meterRegistry.counter("libreria.reservations.created").increment();
+        // El título viene de la caché para no inicializar la referencia al libro
+        return convertToDTO(reservation, book.getTitle());
 
     }
     
+    /**
+     * Crea un lote de reservas en una sola transacción: usuarios y libros se validan con una
+     * consulta cada uno, el stock se descuenta con un UPDATE condicional por libro y las reservas
+     * se insertan en lotes JDBC. Cada elemento informa su propio resultado; los que fallan
+     * (datos inválidos, usuario o libro inexistente, sin stock) no afectan al resto.
+     */
+    @Transactional
+    public BatchResultDTO<ReservationResponseDTO> createReservations(List<ReservationRequestDTO> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxBatchSize + " reservas");
+        }
+        @SuppressWarnings("unchecked")
+        BatchItemResultDTO<ReservationResponseDTO>[] results = new BatchItemResultDTO[requests.size()];
+        
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String error = validate(requests.get(i), "La reserva es obligatoria");
+            if (error != null) {
+                results[i] = BatchItemResultDTO.failure(i, error);
+            } else {
+                valid.add(i);
+            }
+        }
+        
+        Map<Long, User> users = userService.getUserEntities(
+                valid.stream().map(i -> requests.get(i).getUserId()).collect(Collectors.toSet()));
+        Map<Long, Book> books = bookService.getBooksByExternalIds(
+                valid.stream().map(i -> requests.get(i).getBookExternalId()).collect(Collectors.toSet()));
+        
+        // Pedidos por libro, en el orden del lote: si no alcanza el stock se atienden los primeros
+        Map<Long, List<Integer>> requestsByBook = new LinkedHashMap<>();
+        for (int i : valid) {
+            ReservationRequestDTO request = requests.get(i);
+            if (!users.containsKey(request.getUserId())) {
+                results[i] = BatchItemResultDTO.failure(i, "Usuario no encontrado con ID: " + request.getUserId());
+            } else if (!books.containsKey(request.getBookExternalId())) {
+                results[i] = BatchItemResultDTO.failure(i,
+                        "Libro no encontrado con ID externo: " + request.getBookExternalId());
+            } else {
+                requestsByBook.computeIfAbsent(request.getBookExternalId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        // Se pide un ejemplar por pedido: si no alcanzan, se descuentan los que haya en ese momento
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        requestsByBook.forEach((externalId, indexes) -> quantities.put(externalId, indexes.size()));
+        Map<Long, Integer> decreased = bookService.tryDecreaseAvailableQuantities(quantities);
+        
+        List<Reservation> reservations = new ArrayList<>();
+        List<Integer> reservationIndexes = new ArrayList<>();
+        int rejected = 0;
+        for (Map.Entry<Long, List<Integer>> entry : requestsByBook.entrySet()) {
+            Book book = books.get(entry.getKey());
+            int granted = decreased.getOrDefault(entry.getKey(), 0);
+            List<Integer> indexes = entry.getValue();
+            for (int position = 0; position < indexes.size(); position++) {
+                int i = indexes.get(position);
+                if (position >= granted) {
+                    results[i] = BatchItemResultDTO.failure(i, "El libro no está disponible");
+                    rejected++;
+                    continue;
+                }
+                reservations.add(newReservation(requests.get(i), users.get(requests.get(i).getUserId()), book));
+                reservationIndexes.add(i);
+            }
+        }
+        
+        reservationRepository.insertAll(reservations);
+        reportService.recordReservations(reservations);
+        readVersions.reservationsChangedAfterCommit(userIds(reservations));
+        for (int k = 0; k < reservations.size(); k++) {
+            Reservation reservation = reservations.get(k);
+            int i = reservationIndexes.get(k);
+            results[i] = BatchItemResultDTO.success(i, convertToDTO(reservation, reservation.getBook().getTitle()));
+        }
+        
+        meterRegistry.counter("libreria.reservations.created").increment(reservations.size());
+        meterRegistry.counter("libreria.reservations.rejected", "reason", "no_stock").increment(rejected);
+        return BatchResultDTO.of(Arrays.asList(results));
+    }
+    
     @Transactional
     public ReservationResponseDTO returnBook(Long reservationId, ReturnBookRequestDTO returnRequest) {
 
@@ -86,40 +179,87 @@ public class ReservationService {
         Reservation reservation = reservationRepository.findById(reservationId)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada con ID: " + reservationId));
         
-        if (reservation.getStatus() != Reservation.ReservationStatus.ACTIVE) {
+        if (reservation.getStatus() == Reservation.ReservationStatus.RETURNED) {
             throw new RuntimeException("La reserva ya fue devuelta");
         }
         
-        LocalDate returnDate = returnRequest.getReturnDate();
-        reservation.setActualReturnDate(returnDate);
-        
-        // Calcular tarifa por demora si hay retraso
-        LocalDate expected = reservation.getExpectedReturnDate();
-        long daysLate = 0;
-
-        if (returnDate.isAfter(expected)) {
-            daysLate = java.time.temporal.ChronoUnit.DAYS.between(expected, returnDate);
+        // Aumentar la cantidad disponible (UPDATE condicional, sin pisar el resto de las columnas)
+        if (!bookService.tryIncreaseAvailableQuantity(reservation.getBook().getExternalId())) {
+            throw new RuntimeException("La cantidad disponible no puede exceder el stock");
         }
-
-        BigDecimal lateFee = BigDecimal.ZERO;
-
-        if (daysLate > 0) {
-            BigDecimal bookPrice = reservation.getBook().getPrice();
-            lateFee = calculateLateFee(bookPrice, daysLate);
-            reservation.setLateFee(lateFee);
-        }
-        reservation.setStatus(Reservation.ReservationStatus.RETURNED);
-
-        // Aumentar la cantidad disponible
-        Book book = reservation.getBook();
-        book.setAvailableQuantity(book.getAvailableQuantity() + 1);
-        bookRepository.save(book);
+        markReturned(reservation, returnRequest.getReturnDate());
 
         reservation = reservationRepository.save(reservation);
+        reportService.recordReturns(List.of(reservation));
+        readVersions.reservationsChangedAfterCommit(List.of(reservation.getUser().getId()));
 
         return convertToDTO(reservation);
     }
     
+    /**
+     * Devuelve un lote de reservas en una sola transacción: las reservas (con usuario y libro) se
+     * cargan en una consulta, el stock se repone con un UPDATE condicional por libro y los cambios
+     * de las reservas se escriben al confirmar, en lotes JDBC. Cada elemento informa su resultado.
+     */
+    @Transactional
+    public BatchResultDTO<ReservationResponseDTO> returnBooks(List<ReservationReturnDTO> returns) {
+        if (returns.size() > maxBatchSize) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxBatchSize + " devoluciones");
+        }
+        @SuppressWarnings("unchecked")
+        BatchItemResultDTO<ReservationResponseDTO>[] results = new BatchItemResultDTO[returns.size()];
+        
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < returns.size(); i++) {
+            String error = validate(returns.get(i), "La devolución es obligatoria");
+            if (error != null) {
+                results[i] = BatchItemResultDTO.failure(i, error);
+            } else {
+                valid.add(i);
+            }
+        }
+        
+        Map<Long, Reservation> reservations = reservationRepository.findWithUserAndBookByIdIn(
+                        valid.stream().map(i -> returns.get(i).getReservationId()).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Reservation::getId, Function.identity()));
+        
+        Set<Long> seen = new HashSet<>();
+        Map<Long, List<Integer>> returnsByBook = new LinkedHashMap<>();
+        for (int i : valid) {
+            Long reservationId = returns.get(i).getReservationId();
+            Reservation reservation = reservations.get(reservationId);
+            if (reservation == null) {
+                results[i] = BatchItemResultDTO.failure(i, "Reserva no encontrada con ID: " + reservationId);
+            } else if (reservation.getStatus() == Reservation.ReservationStatus.RETURNED || !seen.add(reservationId)) {
+                results[i] = BatchItemResultDTO.failure(i, "La reserva ya fue devuelta");
+            } else {
+                returnsByBook.computeIfAbsent(reservation.getBook().getExternalId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        returnsByBook.forEach((externalId, indexes) -> quantities.put(externalId, indexes.size()));
+        Set<Long> increased = bookService.tryIncreaseAvailableQuantities(quantities);
+        
+        List<Reservation> returned = new ArrayList<>();
+        returnsByBook.forEach((externalId, indexes) -> {
+            for (int i : indexes) {
+                if (!increased.contains(externalId)) {
+                    results[i] = BatchItemResultDTO.failure(i, "La cantidad disponible no puede exceder el stock");
+                    continue;
+                }
+                Reservation reservation = reservations.get(returns.get(i).getReservationId());
+                markReturned(reservation, returns.get(i).getReturnDate());
+                returned.add(reservation);
+                results[i] = BatchItemResultDTO.success(i, convertToDTO(reservation));
+            }
+        });
+        reportService.recordReturns(returned);
+        readVersions.reservationsChangedAfterCommit(userIds(returned));
+        return BatchResultDTO.of(Arrays.asList(results));
+    }
+    
     @Transactional(readOnly = true)
     public ReservationResponseDTO getReservationById(Long id) {
         Reservation reservation = reservationRepository.findById(id)
@@ -128,34 +268,98 @@ public class ReservationService {
     }
     
     @Transactional(readOnly = true)
-    public List<ReservationResponseDTO> getAllReservations() {
-        return reservationRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPageDTO<ReservationResponseDTO> getAllReservations(Long afterId, int size) {
+        return CursorPageDTO.of(reservationRepository.findResponsesAfter(cursor(afterId), Limit.of(size + 1)),
+                size, ReservationResponseDTO::getId);
     }
     
     @Transactional(readOnly = true)
-    public List<ReservationResponseDTO> getReservationsByUserId(Long userId) {
-        return reservationRepository.findByUserId(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPageDTO<ReservationResponseDTO> getReservationsByUserId(Long userId, Long afterId, int size) {
+        return CursorPageDTO.of(reservationRepository.findResponsesByUserIdAfter(
+                userId, cursor(afterId), Limit.of(size + 1)), size, ReservationResponseDTO::getId);
     }
     
     @Transactional(readOnly = true)
-    public List<ReservationResponseDTO> getActiveReservations() {
-        return reservationRepository.findByStatus(Reservation.ReservationStatus.ACTIVE).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPageDTO<ReservationResponseDTO> getActiveReservations(Long afterId, int size) {
+        return CursorPageDTO.of(reservationRepository.findResponsesByStatusAfter(
+                Reservation.ReservationStatus.ACTIVE, cursor(afterId), Limit.of(size + 1)),
+                size, ReservationResponseDTO::getId);
     }
     
+    // Las reservas vencidas las marca OverdueReservationJob: acá solo se filtra por estado
     @Transactional(readOnly = true)
-    public List<ReservationResponseDTO> getOverdueReservations() {
-        return reservationRepository.findOverdueReservations().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPageDTO<ReservationResponseDTO> getOverdueReservations(Long afterId, int size) {
+        return CursorPageDTO.of(reservationRepository.findResponsesByStatusAfter(
+                Reservation.ReservationStatus.OVERDUE, cursor(afterId), Limit.of(size + 1)),
+                size, ReservationResponseDTO::getId);
+    }
+    
+    /**
+     * Marca como OVERDUE un lote de hasta batchSize reservas activas cuya fecha de devolución
+     * es anterior a today. Cada lote es una transacción corta; devuelve cuántas filas cambió.
+     */
+    @Transactional
+    public int markOverdueBatch(LocalDate today, int batchSize) {
+        List<Long> ids = reservationRepository.findOverdueCandidateIds(today, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int marked = reservationRepository.markOverdue(ids);
+        // Sin cargar los usuarios de cada reserva: el lote invalida las reservas de todos
+        readVersions.allReservationsChangedAfterCommit();
+        return marked;
+    }
+    
+    private static Set<Long> userIds(List<Reservation> reservations) {
+        return reservations.stream().map(reservation -> reservation.getUser().getId()).collect(Collectors.toSet());
     }
     
-    private BigDecimal calculateTotalFee(BigDecimal dailyRate, Integer rentalDays) {
+    // Fecha de devolución, multa por demora (15% del precio del libro por día) y estado RETURNED
+    private void markReturned(Reservation reservation, LocalDate returnDate) {
+        reservation.setActualReturnDate(returnDate);
+        LocalDate expected = reservation.getExpectedReturnDate();
+        long daysLate = returnDate.isAfter(expected) ? ChronoUnit.DAYS.between(expected, returnDate) : 0;
+        reservation.setStatus(Reservation.ReservationStatus.RETURNED);
+        
+        meterRegistry.counter("libreria.reservations.returned", "late", String.valueOf(daysLate > 0)).increment();
+        if (daysLate > 0) {
+            BigDecimal lateFee = calculateLateFee(reservation.getBook().getPrice(), daysLate);
+            reservation.setLateFee(lateFee);
+            // El total acumulado (sum) del resumen es el total de multas cobradas
+            meterRegistry.summary("libreria.reservations.late_fee").record(lateFee.doubleValue());
+        }
+    }
+    
+    private Reservation newReservation(ReservationRequestDTO request, User user, Book book) {
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setBook(book);
+        reservation.setRentalDays(request.getRentalDays());
+        reservation.setStartDate(request.getStartDate());
+        reservation.setExpectedReturnDate(request.getStartDate().plusDays(request.getRentalDays()));
+        reservation.setDailyRate(book.getPrice());
+        reservation.setTotalFee(calculateTotalFee(book.getPrice(), request.getRentalDays()));
+        reservation.setStatus(Reservation.ReservationStatus.ACTIVE);
+        return reservation;
+    }
+    
+    // Mismas reglas que @Valid en los endpoints individuales, pero sin cortar el lote
+    private <T> String validate(T request, String requiredMessage) {
+        if (request == null) {
+            return requiredMessage;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+    
+    private Long cursor(Long afterId) {
+        return afterId == null ? 0L : afterId;
+    }
+    
+    BigDecimal calculateTotalFee(BigDecimal dailyRate, Integer rentalDays) {
         // TODO: Implementar el cálculo del total de la reserva
         if (dailyRate == null || rentalDays == null || rentalDays <= 0) {
             throw new IllegalArgumentException("La tarifa diaria y los dias de alquiler deben ser vslidos");
@@ -165,7 +369,7 @@ public class ReservationService {
                 .multiply(BigDecimal.valueOf(rentalDays));
     }
     
-    private BigDecimal calculateLateFee(BigDecimal bookPrice, long daysLate) {
+    BigDecimal calculateLateFee(BigDecimal bookPrice, long daysLate) {
         // 15% del precio del libro por cada día de demora
         // TODO: Implementar el cálculo de la multa por demora
         if (daysLate <= 0) {
@@ -179,12 +383,16 @@ public class ReservationService {
     }
     
     public ReservationResponseDTO convertToDTO(Reservation reservation) {
+        return convertToDTO(reservation, reservation.getBook().getTitle());
+    }
+    
+    private ReservationResponseDTO convertToDTO(Reservation reservation, String bookTitle) {
         ReservationResponseDTO dto = new ReservationResponseDTO();
         dto.setId(reservation.getId());
         dto.setUserId(reservation.getUser().getId());
         dto.setUserName(reservation.getUser().getName());
         dto.setBookExternalId(reservation.getBook().getExternalId());
-        dto.setBookTitle(reservation.getBook().getTitle());
+        dto.setBookTitle(bookTitle);
         dto.setRentalDays(reservation.getRentalDays());
         dto.setStartDate(reservation.getStartDate());
         dto.setExpectedReturnDate(reservation.getExpectedReturnDate());
@@ -0,0 +1,43 @@
+package com.example.libreria.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cambios en memoria (índices, versiones de lectura, contadores del ledger) atados al resultado
+ * de la transacción actual: así lo que ven las lecturas no se adelanta a la base ni queda con
+ * datos de una transacción revertida.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /** Ejecuta change después del commit de la transacción actual, o en el momento si no hay una. */
+    static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /** Ejecuta undo si la transacción actual se revierte; sin transacción no hay nada que deshacer. */
+    static void afterRollback(Runnable undo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        undo.run();
+                    }
+                }
+            });
+        }
+    }
+}
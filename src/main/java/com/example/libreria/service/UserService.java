@@ -1,23 +1,61 @@
 package com.example.libreria.service;
 
+import com.example.libreria.dto.BatchItemResultDTO;
+import com.example.libreria.dto.BatchResultDTO;
+import com.example.libreria.dto.CursorPageDTO;
 import com.example.libreria.dto.UserRequestDTO;
 import com.example.libreria.dto.UserResponseDTO;
 import com.example.libreria.model.User;
 import com.example.libreria.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed("libreria.service")
 public class UserService {
     
     private final UserRepository userRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ReadVersions readVersions;
+    
+    @Value("${users.bulk.max-size:10000}")
+    private int maxBulkSize = 10000;
+    
+    @Value("${users.bulk.window-size:1000}")
+    private int bulkWindowSize = 1000;
     
     @Transactional
     public UserResponseDTO createUser(UserRequestDTO requestDTO) {
@@ -35,6 +73,59 @@ public class UserService {
         return convertToDTO(savedUser);
     }
     
+    /**
+     * Alta de usuarios en lote. Se procesa en ventanas de window-size: una consulta IN por ventana
+     * para la unicidad del email, más el chequeo contra los emails anteriores del mismo lote, y los
+     * válidos de la ventana se insertan en lotes JDBC en una transacción. Devuelve un resultado por
+     * usuario, en el mismo orden; un usuario inválido o repetido no impide el alta de los demás.
+     */
+    public BatchResultDTO<UserResponseDTO> createUsers(List<UserRequestDTO> requests) {
+        if (requests.size() > maxBulkSize) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxBulkSize + " usuarios");
+        }
+        List<BatchItemResultDTO<UserResponseDTO>> results = new ArrayList<>(requests.size());
+        Set<String> seenEmails = new HashSet<>();
+        for (int from = 0; from < requests.size(); from += bulkWindowSize) {
+            List<ImportRow> window = requests.subList(from, Math.min(from + bulkWindowSize, requests.size())).stream()
+                    .map(request -> new ImportRow(request, null))
+                    .toList();
+            results.addAll(createWindow(window, from, seenEmails));
+        }
+        return BatchResultDTO.of(results);
+    }
+    
+    /**
+     * Igual que {@link #createUsers(List)} pero leyendo NDJSON (un usuario por línea) a medida que
+     * llega: en memoria solo hay una ventana de usuarios además de los resultados, así que no tiene
+     * máximo. Una línea que no es JSON válido falla sola; las líneas en blanco se ignoran.
+     */
+    public BatchResultDTO<UserResponseDTO> importUsers(InputStream ndjson) {
+        ObjectReader reader = objectMapper.readerFor(UserRequestDTO.class);
+        List<BatchItemResultDTO<UserResponseDTO>> results = new ArrayList<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<ImportRow> window = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    window.add(new ImportRow(reader.readValue(line), null));
+                } catch (JsonProcessingException e) {
+                    window.add(new ImportRow(null, "JSON inválido: " + e.getOriginalMessage()));
+                }
+                if (window.size() == bulkWindowSize) {
+                    results.addAll(createWindow(window, results.size(), seenEmails));
+                    window.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        results.addAll(createWindow(window, results.size(), seenEmails));
+        return BatchResultDTO.of(results);
+    }
+    
     @Transactional(readOnly = true)
     public UserResponseDTO getUserById(Long id) {
         User user = userRepository.findById(id)
@@ -43,10 +134,13 @@ public class UserService {
     }
     
     @Transactional(readOnly = true)
-    public List<UserResponseDTO> getAllUsers() {
-        return userRepository.findAll().stream()
+    public CursorPageDTO<UserResponseDTO> getAllUsers(Long afterId, int size) {
+        List<UserResponseDTO> users = userRepository
+                .findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, Limit.of(size + 1))
+                .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        return CursorPageDTO.of(users, size, UserResponseDTO::getId);
     }
     
     @Transactional
@@ -65,6 +159,8 @@ public class UserService {
         user.setPhoneNumber(requestDTO.getPhoneNumber());
         
         User updatedUser = userRepository.save(user);
+        // Las reservas del usuario muestran su nombre
+        readVersions.reservationsChangedAfterCommit(List.of(id));
         log.info("Updated user with id: {}", updatedUser.getId());
         return convertToDTO(updatedUser);
     }
@@ -75,6 +171,7 @@ public class UserService {
             throw new RuntimeException("Usuario no encontrado con ID: " + id);
         }
         userRepository.deleteById(id);
+        readVersions.reservationsChangedAfterCommit(List.of(id));
         log.info("Deleted user with id: {}", id);
     }
     
@@ -84,7 +181,99 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con ID: " + id));
     }
     
-    private UserResponseDTO convertToDTO(User user) {
+    @Transactional(readOnly = true)
+    public Map<Long, User> getUserEntities(Collection<Long> ids) {
+        return userRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+    
+    private List<BatchItemResultDTO<UserResponseDTO>> createWindow(List<ImportRow> rows, int offset,
+                                                                  Set<String> seenEmails) {
+        @SuppressWarnings("unchecked")
+        BatchItemResultDTO<UserResponseDTO>[] results = new BatchItemResultDTO[rows.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            String error = row.error() != null ? row.error() : validate(row.request());
+            if (error == null && !seenEmails.add(row.request().getEmail())) {
+                error = "Email repetido en el lote: " + row.request().getEmail();
+            }
+            if (error != null) {
+                results[i] = BatchItemResultDTO.failure(offset + i, error);
+            } else {
+                candidates.put(row.request().getEmail(), i);
+            }
+        }
+        
+        Set<String> existing = candidates.isEmpty() ? Set.of() : userRepository.findExistingEmails(candidates.keySet());
+        List<User> users = new ArrayList<>();
+        candidates.forEach((email, i) -> {
+            if (existing.contains(email)) {
+                results[i] = BatchItemResultDTO.failure(offset + i, "Ya existe un usuario con el email: " + email);
+            } else {
+                UserRequestDTO request = rows.get(i).request();
+                User user = new User();
+                user.setName(request.getName());
+                user.setEmail(email);
+                user.setPhoneNumber(request.getPhoneNumber());
+                users.add(user);
+            }
+        });
+        
+        for (User user : insert(users, candidates, results, offset)) {
+            int i = candidates.get(user.getEmail());
+            results[i] = BatchItemResultDTO.success(offset + i, convertToDTO(user));
+        }
+        if (!users.isEmpty()) {
+            log.info("Created {} users in bulk", users.size());
+        }
+        return Arrays.asList(results);
+    }
+    
+    // Sin chequeo bajo lock: si otro alta confirma uno de estos emails después de la consulta, la
+    // restricción única rechaza el INSERT y la transacción se revierte entera. Esos usuarios fallan
+    // y el resto de la ventana se reintenta
+    private List<User> insert(List<User> users, Map<String, Integer> positions,
+                              BatchItemResultDTO<UserResponseDTO>[] results, int offset) {
+        List<User> pending = users;
+        while (!pending.isEmpty()) {
+            List<User> attempt = pending;
+            try {
+                transactionTemplate.executeWithoutResult(status -> userRepository.insertAll(attempt));
+                return attempt;
+            } catch (DuplicateKeyException e) {
+                Set<String> taken = userRepository.findExistingEmails(
+                        attempt.stream().map(User::getEmail).toList());
+                if (taken.isEmpty()) {
+                    throw e;
+                }
+                for (String email : taken) {
+                    int i = positions.get(email);
+                    results[i] = BatchItemResultDTO.failure(offset + i, "Ya existe un usuario con el email: " + email);
+                }
+                pending = attempt.stream().filter(user -> !taken.contains(user.getEmail())).toList();
+            }
+        }
+        return pending;
+    }
+    
+    // Mismas reglas que @Valid en POST /api/users, pero sin cortar el lote
+    private String validate(UserRequestDTO request) {
+        if (request == null) {
+            return "El usuario es obligatorio";
+        }
+        Set<ConstraintViolation<UserRequestDTO>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+    
+    // Un elemento del lote: el pedido, o el error si no se pudo leer
+    private record ImportRow(UserRequestDTO request, String error) {
+    }
+    
+    UserResponseDTO convertToDTO(User user) {
         UserResponseDTO dto = new UserResponseDTO();
         dto.setId(user.getId());
         dto.setName(user.getName());
@@ -17,13 +17,14 @@
 --     (50012, 'Jane Austen');
 
 -- Insertar usuarios de ejemplo
-INSERT INTO users (name, email, phone_number, created_at)
+-- IDs explícitos: la secuencia users_seq se ajusta después, en db/sequence-ids.sql
+INSERT INTO users (id, name, email, phone_number, created_at)
 VALUES 
-    ('Juan Pérez', 'juan.perez@example.com', '123456789', CURRENT_TIMESTAMP),
-    ('María García', 'maria.garcia@example.com', '987654321', CURRENT_TIMESTAMP),
-    ('Carlos Rodríguez', 'carlos.rodriguez@example.com', '555123456', CURRENT_TIMESTAMP),
-    ('Ana Martínez', 'ana.martinez@example.com', '555987654', CURRENT_TIMESTAMP),
-    ('Luis Fernández', 'luis.fernandez@example.com', '555456789', CURRENT_TIMESTAMP);
+    (1, 'Juan Pérez', 'juan.perez@example.com', '123456789', CURRENT_TIMESTAMP),
+    (2, 'María García', 'maria.garcia@example.com', '987654321', CURRENT_TIMESTAMP),
+    (3, 'Carlos Rodríguez', 'carlos.rodriguez@example.com', '555123456', CURRENT_TIMESTAMP),
+    (4, 'Ana Martínez', 'ana.martinez@example.com', '555987654', CURRENT_TIMESTAMP),
+    (5, 'Luis Fernández', 'luis.fernandez@example.com', '555456789', CURRENT_TIMESTAMP);
 
 -- -- Insertar reservas de ejemplo
 -- -- Nota: Las fechas se calculan dinámicamente usando DATEADD de H2
@@ -0,0 +1,24 @@
+-- Migración de IDENTITY a secuencias (users_seq y reservations_seq, que crea Hibernate con incremento 50).
+-- Se ejecuta en cada arranque, después de data.sql, y no cambia nada si ya se aplicó.
+
+-- Las bases creadas con IDENTITY conservan sus IDs; la columna deja de generarlos
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE reservations ALTER COLUMN id DROP IDENTITY;
+
+-- Los INSERT por SQL que no indican el ID (scripts, consultas manuales) lo toman de la secuencia
+ALTER TABLE users ALTER COLUMN id SET DEFAULT NEXT VALUE FOR users_seq;
+ALTER TABLE reservations ALTER COLUMN id SET DEFAULT NEXT VALUE FOR reservations_seq;
+
+-- Con el optimizador pooled cada valor de la secuencia es el último de un bloque de 50 IDs: el siguiente
+-- valor tiene que ser al menos MAX(id) + 50 para que el primer bloque empiece después de los IDs existentes.
+-- Nunca se retrocede: otra instancia puede tener reservado un bloque más alto
+ALTER SEQUENCE users_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(id), 0) + 50,
+                    (SELECT base_value FROM information_schema.sequences
+                     WHERE sequence_schema = CURRENT_SCHEMA AND sequence_name = 'USERS_SEQ'))
+    FROM users);
+ALTER SEQUENCE reservations_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(id), 0) + 50,
+                    (SELECT base_value FROM information_schema.sequences
+                     WHERE sequence_schema = CURRENT_SCHEMA AND sequence_name = 'RESERVATIONS_SEQ'))
+    FROM reservations);
@@ -0,0 +1,106 @@
+package com.example.libreria.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latencia de GET /api/books con 10.000 libros (dos autores cada uno), medida
+ * por HTTP contra el servidor embebido. Reporta la primera página con el tamaño
+ * por defecto, la página máxima y el recorrido completo del catálogo, junto con
+ * las sentencias SQL preparadas por request.
+ * Se ejecuta con: ./mvnw test -Pbenchmark -Dtest=BookCatalogReadBenchmark
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:book_catalog_read_benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.com.example.libreria=WARN",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class BookCatalogReadBenchmark {
+
+    private static final int BOOKS = 10_000;
+    private static final int WARMUP = 3_000;
+    private static final int MEASURED = 2_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void getBooksLatency() {
+        seedCatalog();
+        RestClient client = RestClient.create("http://localhost:" + port);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int size : new int[] {50, 500}) {
+            for (int i = 0; i < WARMUP; i++) {
+                page(client, null, size);
+            }
+            statistics.clear();
+            long[] samples = new long[MEASURED];
+            for (int i = 0; i < MEASURED; i++) {
+                long start = System.nanoTime();
+                page(client, null, size);
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            System.out.printf("[BookCatalogReadBenchmark] size=%-4d p50 %.2f ms  p99 %.2f ms  %.1f statements/request%n",
+                    size, samples[MEASURED / 2] / 1e6, samples[MEASURED * 99 / 100] / 1e6,
+                    (double) statistics.getPrepareStatementCount() / MEASURED);
+        }
+
+        statistics.clear();
+        long start = System.nanoTime();
+        int pages = 0;
+        int books = 0;
+        Object next = null;
+        do {
+            Map<?, ?> body = page(client, next, 500);
+            books += ((List<?>) body.get("items")).size();
+            next = body.get("next");
+            pages++;
+        } while (next != null);
+        System.out.printf("[BookCatalogReadBenchmark] full walk: %,d books in %d pages  %.1f ms  %,d statements%n",
+                books, pages, (System.nanoTime() - start) / 1e6, statistics.getPrepareStatementCount());
+    }
+
+    private Map<?, ?> page(RestClient client, Object after, int size) {
+        return client.get()
+                .uri(after == null ? "/api/books?size={size}" : "/api/books?size={size}&after={after}", size, after)
+                .retrieve()
+                .body(Map.class);
+    }
+
+    private void seedCatalog() {
+        List<Object[]> books = new ArrayList<>(BOOKS);
+        List<Object[]> authors = new ArrayList<>(BOOKS * 2);
+        for (long id = 1; id <= BOOKS; id++) {
+            books.add(new Object[] {id, "Libro " + id});
+            authors.add(new Object[] {id, "Autor A" + id});
+            authors.add(new Object[] {id, "Autor B" + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (external_id, title, first_publish_year, edition_count, "
+                + "has_fulltext, price, stock_quantity, available_quantity) VALUES (?, ?, 2000, 1, true, 10.00, 10, 10)",
+                books);
+        jdbcTemplate.batchUpdate("INSERT INTO book_authors (book_id, author_name) VALUES (?, ?)", authors);
+    }
+}
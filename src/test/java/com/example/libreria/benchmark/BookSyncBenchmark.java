@@ -0,0 +1,83 @@
+package com.example.libreria.benchmark;
+
+import com.example.libreria.dto.ExternalBookDTO;
+import com.example.libreria.dto.ExternalCatalogDTO;
+import com.example.libreria.dto.SyncResultDTO;
+import com.example.libreria.repository.BookRepository;
+import com.example.libreria.service.BookService;
+import com.example.libreria.service.ExternalBookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mide filas por segundo de la sincronización del catálogo contra H2 en memoria.
+ * Se ejecuta con: ./mvnw test -Pbenchmark -Dtest=BookSyncBenchmark
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:book_sync_benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "logging.level.com.example.libreria=WARN"
+})
+class BookSyncBenchmark {
+    
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+    
+    @Autowired
+    private BookService bookService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @MockitoBean
+    private ExternalBookService externalBookService;
+    
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM book_authors");
+        jdbcTemplate.update("DELETE FROM books");
+    }
+    
+    @Test
+    void syncThroughput() {
+        // Calentamiento para que JIT y pool de conexiones no distorsionen la primera medición
+        runSync(SyntheticCatalog.books(2_000));
+        cleanUp();
+        
+        for (int size : SIZES) {
+            SyncResultDTO inserted = runSync(SyntheticCatalog.books(size));
+            assertEquals(size, inserted.getCreated());
+            SyncResultDTO updated = runSync(SyntheticCatalog.books(size, 1));
+            assertEquals(size, updated.getUpdated());
+            SyncResultDTO unchanged = runSync(SyntheticCatalog.books(size, 1));
+            assertEquals(size, unchanged.getUnchanged());
+            assertEquals(size, bookRepository.count());
+            cleanUp();
+        }
+    }
+    
+    private SyncResultDTO runSync(List<ExternalBookDTO> catalog) {
+        when(externalBookService.fetchAllBooksIfModified(any(), any()))
+                .thenReturn(new ExternalCatalogDTO(catalog, false, null, null));
+        long start = System.nanoTime();
+        SyncResultDTO result = bookService.syncBooksFromExternalApi();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("[BookSyncBenchmark] %,7d books  created=%,7d updated=%,7d unchanged=%,7d  %6.2f s  %,10.0f rows/s%n",
+                catalog.size(), result.getCreated(), result.getUpdated(), result.getUnchanged(),
+                seconds, catalog.size() / seconds);
+        return result;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.libreria.benchmark;
+
+import com.example.libreria.dto.BatchResultDTO;
+import com.example.libreria.dto.ReservationRequestDTO;
+import com.example.libreria.dto.UserRequestDTO;
+import com.example.libreria.model.Book;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.model.User;
+import com.example.libreria.repository.BookRepository;
+import com.example.libreria.repository.ReservationRepository;
+import com.example.libreria.repository.UserRepository;
+import com.example.libreria.service.ReservationService;
+import com.example.libreria.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Filas por segundo al insertar usuarios y reservas en bloque contra H2 en memoria, por dos caminos:
+ *   - saveAll: repositorio JPA en transacciones de CHUNK filas (el INSERT lo arma Hibernate).
+ *   - servicio: POST /api/users/bulk y POST /api/reservations/batch sin la capa HTTP.
+ * También imprime cuántas sentencias preparó Hibernate por fila: con IDENTITY cada INSERT va solo,
+ * con secuencias y el optimizador pooled van en lotes de hibernate.jdbc.batch_size.
+ * Cada medición se repite: la primera pasada es de calentamiento.
+ * Se ejecuta con: ./mvnw test -Pbenchmark -Dtest=BulkInsertBenchmark
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk_insert_benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.com.example.libreria=WARN"
+})
+class BulkInsertBenchmark {
+
+    private static final long BOOK_ID = 900_003L;
+    private static final int ROWS = 10_000;
+    private static final int CHUNK = 1_000;
+    private static final int PASSES = 5;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        jdbcTemplate.update("INSERT INTO books (external_id, title, price, stock_quantity, available_quantity) "
+                + "VALUES (?, 'Bulk Book', 10.00, 1000000, 1000000)", BOOK_ID);
+        userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM reservations WHERE book_external_id = ?", BOOK_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'bulk%@example.com'");
+        jdbcTemplate.update("DELETE FROM books WHERE external_id = ?", BOOK_ID);
+    }
+
+    @Test
+    void usersSaveAll() {
+        measure("users saveAll", () -> {
+            for (int from = 0; from < ROWS; from += CHUNK) {
+                List<User> users = new ArrayList<>(CHUNK);
+                for (int i = from; i < from + CHUNK; i++) {
+                    User user = new User();
+                    user.setName("Lector " + i);
+                    user.setEmail(email(i));
+                    users.add(user);
+                }
+                transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+            }
+            return ROWS;
+        }, () -> jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'bulk%@example.com'"));
+    }
+
+    @Test
+    void usersBulkService() {
+        measure("users bulk", () -> {
+            List<UserRequestDTO> requests = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                requests.add(new UserRequestDTO("Lector " + i, email(i), null));
+            }
+            BatchResultDTO<?> result = userService.createUsers(requests);
+            assertEquals(ROWS, result.getSucceeded());
+            return ROWS;
+        }, () -> jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'bulk%@example.com'"));
+    }
+
+    @Test
+    void reservationsSaveAll() {
+        LocalDate start = LocalDate.now();
+        measure("reservations saveAll", () -> {
+            for (int from = 0; from < ROWS; from += CHUNK) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    User user = userRepository.getReferenceById(userId);
+                    Book book = bookRepository.getReferenceById(BOOK_ID);
+                    List<Reservation> reservations = new ArrayList<>(CHUNK);
+                    for (int i = 0; i < CHUNK; i++) {
+                        Reservation reservation = new Reservation();
+                        reservation.setUser(user);
+                        reservation.setBook(book);
+                        reservation.setRentalDays(7);
+                        reservation.setStartDate(start);
+                        reservation.setExpectedReturnDate(start.plusDays(7));
+                        reservation.setDailyRate(BigDecimal.TEN);
+                        reservation.setTotalFee(new BigDecimal("70.00"));
+                        reservations.add(reservation);
+                    }
+                    reservationRepository.saveAll(reservations);
+                });
+            }
+            return ROWS;
+        }, () -> jdbcTemplate.update("DELETE FROM reservations WHERE book_external_id = ?", BOOK_ID));
+    }
+
+    @Test
+    void reservationsBatchService() {
+        LocalDate start = LocalDate.now();
+        List<ReservationRequestDTO> requests = new ArrayList<>(CHUNK);
+        for (int i = 0; i < CHUNK; i++) {
+            requests.add(new ReservationRequestDTO(userId, BOOK_ID, 7, start));
+        }
+        measure("reservations batch", () -> {
+            for (int from = 0; from < ROWS; from += CHUNK) {
+                assertEquals(CHUNK, reservationService.createReservations(requests).getSucceeded());
+            }
+            return ROWS;
+        }, () -> jdbcTemplate.update("DELETE FROM reservations WHERE book_external_id = ?", BOOK_ID));
+    }
+
+    private void measure(String label, IntSupplier insert, Runnable reset) {
+        for (int pass = 0; pass < PASSES; pass++) {
+            statistics.clear();
+            long start = System.nanoTime();
+            int rows = insert.getAsInt();
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            long statements = statistics.getPrepareStatementCount();
+            reset.run();
+            if (pass > 0) {
+                System.out.printf("[BulkInsertBenchmark] %-20s %,7d rows  %6.3f s  %,10.0f rows/s  %.3f Hibernate statements/row%n",
+                        label, rows, seconds, rows / seconds, (double) statements / rows);
+            }
+        }
+    }
+
+    private static String email(int i) {
+        return "bulk" + i + "@example.com";
+    }
+}
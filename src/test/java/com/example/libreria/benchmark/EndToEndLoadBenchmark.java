@@ -0,0 +1,122 @@
+package com.example.libreria.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Prueba de carga de punta a punta contra el servidor embebido, con la API externa reemplazada
+ * por {@link ExternalCatalogStub}. Mide POST /api/books/sync, POST /api/reservations y
+ * POST /api/reservations/{id}/return a una tasa fija y reporta p50/p99 y throughput.
+ *
+ * Se ejecuta con: ./mvnw test -Pbenchmark -Dtest=EndToEndLoadBenchmark
+ * Parámetros (-D...): load.books (10000), load.rate (reservas y devoluciones por segundo, 100),
+ * load.seconds (10), load.sync-rate (0.5), stub.latency-ms (50), stub.error-rate (0).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:end_to_end_load_benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "logging.level.com.example.libreria=WARN"
+})
+class EndToEndLoadBenchmark {
+
+    private static final int BOOKS = Integer.getInteger("load.books", 10_000);
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "100"));
+    private static final int SECONDS = Integer.getInteger("load.seconds", 10);
+    private static final double SYNC_RATE = Double.parseDouble(System.getProperty("load.sync-rate", "0.5"));
+
+    // Sin ETag cada sincronización descarga y compara el catálogo completo
+    private static final ExternalCatalogStub STUB = ExternalCatalogStub.synthetic(BOOKS)
+            .latency(Duration.ofMillis(Long.getLong("stub.latency-ms", 50)))
+            .errorRate(Double.parseDouble(System.getProperty("stub.error-rate", "0")), 42)
+            .etag(false)
+            .start(0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void externalApi(DynamicPropertyRegistry registry) {
+        registry.add("external.api.books.url", STUB::booksUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void syncReserveAndReturnUnderLoad() {
+        // Carga inicial del catálogo, fuera de la medición
+        LoadGenerator.Result initialSync = LoadGenerator.run("initial", client, 1, 1, i -> post("/api/books/sync", ""), body -> { });
+        report(initialSync);
+
+        LoadGenerator.Result sync = LoadGenerator.run("sync", client, SYNC_RATE,
+                Math.max(1, (int) (SYNC_RATE * SECONDS)), i -> post("/api/books/sync", ""), body -> { });
+
+        List<Long> users = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        int count = (int) (RATE * SECONDS);
+        Queue<Long> reservationIds = new ConcurrentLinkedQueue<>();
+        LocalDate startDate = LocalDate.now().minusDays(10);
+        LoadGenerator.Result reserve = LoadGenerator.run("reserve", client, RATE, count,
+                i -> post("/api/reservations", String.format(
+                        "{\"userId\":%d,\"bookExternalId\":%d,\"rentalDays\":7,\"startDate\":\"%s\"}",
+                        users.get(i % users.size()), 1 + (i * 7919L) % BOOKS, startDate)),
+                body -> reservationIds.add(readId(body)));
+
+        List<Long> toReturn = List.copyOf(reservationIds);
+        String returnBody = String.format("{\"returnDate\":\"%s\"}", LocalDate.now());
+        LoadGenerator.Result giveBack = LoadGenerator.run("return", client, RATE, toReturn.size(),
+                i -> post("/api/reservations/" + toReturn.get(i) + "/return", returnBody), body -> { });
+
+        report(sync);
+        report(reserve);
+        report(giveBack);
+        System.out.printf("[EndToEndLoadBenchmark] books=%,d rate=%.0f/s seconds=%d stub requests=%d injected errors=%d%n",
+                BOOKS, RATE, SECONDS, STUB.requestCount(), STUB.injectedErrorCount());
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private Long readId(String body) {
+        try {
+            return objectMapper.readTree(body).get("id").asLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void report(LoadGenerator.Result result) {
+        System.out.println("[EndToEndLoadBenchmark] " + result);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.libreria.benchmark;
+
+import com.example.libreria.dto.ExternalBookDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor HTTP local que reemplaza a la API externa de libros. Sirve books-db.json o un
+ * catálogo sintético de cualquier tamaño en GET /books (y GET /books/{id}), con latencia
+ * fija y una proporción configurable de respuestas 503. Responde ETag / If-None-Match
+ * igual que un servidor real, salvo que se desactive para forzar descargas completas.
+ *
+ * <p>Embebido en una prueba:
+ * <pre>
+ * try (ExternalCatalogStub stub = ExternalCatalogStub.synthetic(10_000).latency(Duration.ofMillis(50)).start(0)) {
+ *     // external.api.books.url = stub.booksUrl()
+ * }
+ * </pre>
+ * Standalone, para apuntar la aplicación a http://localhost:8089/books:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.libreria.benchmark.ExternalCatalogStub \
+ *     -Dexec.args="--port 8089 --books 10000 --latency-ms 50 --error-rate 0.01"
+ * </pre>
+ */
+@Slf4j
+public final class ExternalCatalogStub implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final byte[] fileBody;
+    private final int syntheticSize;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+
+    private volatile int revision;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile boolean etagEnabled = true;
+    private Random random = new Random(42);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private ExternalCatalogStub(byte[] fileBody, int syntheticSize) {
+        this.fileBody = fileBody;
+        this.syntheticSize = syntheticSize;
+    }
+
+    /** Sirve el contenido de un archivo JSON (por ejemplo books-db.json) tal cual. */
+    public static ExternalCatalogStub fromFile(Path path) {
+        try {
+            return new ExternalCatalogStub(Files.readAllBytes(path), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Sirve {@link SyntheticCatalog#books(int, int)} generado en streaming, sin armarlo en memoria. */
+    public static ExternalCatalogStub synthetic(int size) {
+        return new ExternalCatalogStub(null, size);
+    }
+
+    public ExternalCatalogStub latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /** Proporción de requests (0..1) que responden 503. La secuencia es reproducible con la semilla. */
+    public ExternalCatalogStub errorRate(double errorRate, long seed) {
+        this.errorRate = errorRate;
+        this.random = new Random(seed);
+        return this;
+    }
+
+    public ExternalCatalogStub etag(boolean enabled) {
+        this.etagEnabled = enabled;
+        return this;
+    }
+
+    /** Cambia títulos y precios del catálogo sintético, y con ellos el ETag. */
+    public ExternalCatalogStub revision(int revision) {
+        this.revision = revision;
+        return this;
+    }
+
+    /** Arranca en el puerto indicado; 0 elige uno libre. */
+    public ExternalCatalogStub start(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/books", this::handle);
+        server.start();
+        log.info("External catalog stub listening on {}", booksUrl());
+        return this;
+    }
+
+    public String booksUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/books";
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    public int injectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+            if (shouldFail()) {
+                injectedErrors.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (!path.equals("/books") && !path.equals("/books/")) {
+                handleSingleBook(exchange, path.substring(path.lastIndexOf('/') + 1));
+                return;
+            }
+
+            String etag = currentEtag();
+            if (etagEnabled) {
+                exchange.getResponseHeaders().set("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+            }
+            if (fileBody != null) {
+                exchange.sendResponseHeaders(200, fileBody.length);
+                exchange.getResponseBody().write(fileBody);
+            } else {
+                // Longitud 0 = chunked: el catálogo se escribe libro por libro
+                exchange.sendResponseHeaders(200, 0);
+                writeSyntheticCatalog(exchange.getResponseBody());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleSingleBook(HttpExchange exchange, String id) throws IOException {
+        if (fileBody != null) {
+            // El archivo se sirve entero: buscar un libro puntual solo se soporta en modo sintético
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        long bookId;
+        try {
+            bookId = Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        if (bookId < 1 || bookId > syntheticSize) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        byte[] body = objectMapper.writeValueAsBytes(SyntheticCatalog.book(bookId, revision));
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void writeSyntheticCatalog(OutputStream out) throws IOException {
+        int currentRevision = revision;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (long id = 1; id <= syntheticSize; id++) {
+                ExternalBookDTO book = SyntheticCatalog.book(id, currentRevision);
+                objectMapper.writeValue(generator, book);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private synchronized boolean shouldFail() {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    private String currentEtag() {
+        if (fileBody == null) {
+            return "\"synthetic-" + syntheticSize + "-" + revision + "\"";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fileBody);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 8) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int port = 8089;
+        Integer books = null;
+        Path file = Path.of("books-db.json");
+        long latencyMs = 0;
+        double errorRate = 0;
+        boolean etag = true;
+        for (int i = 0; i < args.length; i += 2) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(value);
+                case "--books" -> books = Integer.parseInt(value);
+                case "--file" -> file = Path.of(value);
+                case "--latency-ms" -> latencyMs = Long.parseLong(value);
+                case "--error-rate" -> errorRate = Double.parseDouble(value);
+                case "--etag" -> etag = Boolean.parseBoolean(value);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        ExternalCatalogStub stub = (books != null ? synthetic(books) : fromFile(file))
+                .latency(Duration.ofMillis(latencyMs))
+                .errorRate(errorRate, 42)
+                .etag(etag)
+                .start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.libreria.benchmark;
+
+import com.example.libreria.dto.ReservationRequestDTO;
+import com.example.libreria.dto.ReturnBookRequestDTO;
+import com.example.libreria.service.BookService;
+import com.example.libreria.service.InventoryLedger;
+import com.example.libreria.service.ReservationService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput de reservas y devoluciones sobre un único título, con la disponibilidad en la fila
+ * de books (UPDATE condicional por operación) y con el ledger en memoria (CAS + flush en lote).
+ * Cada modo levanta su propio contexto y su propia base; al final se imprime la comparación.
+ *   - stock ops: pares descontar/reponer de BookService, solo el costo de la disponibilidad.
+ *   - ciclos: createReservation + returnBook completos (incluye INSERT/UPDATE de la reserva).
+ * Cada medición se repite: la primera pasada es de calentamiento.
+ * Al terminar se verifica que, tras el flush, la fila de books coincida con el stock.
+ * Se ejecuta con: ./mvnw test -Pbenchmark -Dtest=InventoryLedgerBenchmark
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=64",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "logging.level.com.example.libreria=WARN"
+})
+class InventoryLedgerBenchmark {
+
+    private static final long BOOK_ID = 900_001L;
+    private static final int THREADS = 64;
+    private static final int STOCK_OPS_PER_THREAD = 500;
+    private static final int CYCLES_PER_THREAD = 25;
+
+    private static final Map<String, double[]> RESULTS = new LinkedHashMap<>();
+
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:inventory_db_only_benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+            "inventory.ledger.enabled=false"
+    })
+    class DatabaseOnly extends Scenario {
+        @Test
+        void throughput() throws Exception {
+            run("db-only");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:inventory_ledger_benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+            "inventory.ledger.enabled=true"
+    })
+    class Ledger extends Scenario {
+        @Test
+        void throughput() throws Exception {
+            run("ledger");
+        }
+    }
+
+    @AfterAll
+    static void compare() {
+        double[] db = RESULTS.get("db-only");
+        double[] ledger = RESULTS.get("ledger");
+        if (db != null && ledger != null) {
+            System.out.printf("[InventoryLedgerBenchmark] ledger vs db-only: stock ops x%.1f, cycles x%.1f%n",
+                    ledger[0] / db[0], ledger[1] / db[1]);
+        }
+    }
+
+    abstract static class Scenario {
+
+        @Autowired
+        private BookService bookService;
+
+        @Autowired
+        private ReservationService reservationService;
+
+        @Autowired
+        private InventoryLedger inventoryLedger;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        void run(String mode) throws Exception {
+            // Un ejemplar por hilo: nunca se rechaza por falta de stock y toda la contención es sobre la misma fila
+            jdbcTemplate.update("INSERT INTO books (external_id, title, price, stock_quantity, available_quantity) "
+                    + "VALUES (?, 'Hot Book', 10.00, ?, ?)", BOOK_ID, THREADS, THREADS);
+            Long userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+
+            double stockOps = 2.0 * THREADS * STOCK_OPS_PER_THREAD / measure(() -> {
+                for (int i = 0; i < STOCK_OPS_PER_THREAD; i++) {
+                    bookService.decreaseAvailableQuantity(BOOK_ID);
+                    bookService.increaseAvailableQuantity(BOOK_ID);
+                }
+                return null;
+            });
+
+            double cycles = (double) THREADS * CYCLES_PER_THREAD / measure(() -> {
+                for (int i = 0; i < CYCLES_PER_THREAD; i++) {
+                    Long id = reservationService.createReservation(
+                            new ReservationRequestDTO(userId, BOOK_ID, 7, LocalDate.now())).getId();
+                    reservationService.returnBook(id, new ReturnBookRequestDTO(LocalDate.now()));
+                }
+                return null;
+            });
+
+            inventoryLedger.flush();
+            Integer available = jdbcTemplate.queryForObject(
+                    "SELECT available_quantity FROM books WHERE external_id = ?", Integer.class, BOOK_ID);
+            System.out.printf("[InventoryLedgerBenchmark] %-8s threads=%d  stock ops %,10.0f ops/s  "
+                            + "cycles %,8.0f cycles/s  available after flush=%d%n",
+                    mode, THREADS, stockOps, cycles, available);
+            RESULTS.put(mode, new double[]{stockOps, cycles});
+            assertEquals(THREADS, available);
+        }
+
+        // Segundos totales con todos los hilos ejecutando la misma tarea a la vez. Se corre una vez
+        // sin medir para que el modo que se ejecuta primero no cargue con el calentamiento de la JVM
+        private double measure(Callable<Void> task) throws Exception {
+            runConcurrently(task);
+            return runConcurrently(task);
+        }
+
+        private double runConcurrently(Callable<Void> task) throws Exception {
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+            executor.shutdown();
+            return seconds;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.libreria.benchmark;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Generador de carga de modelo abierto: lanza los requests a una tasa fija sin esperar a que
+ * terminen los anteriores. La latencia se mide desde el instante en que el request debía
+ * salir, así una respuesta lenta no esconde la cola que se forma detrás (coordinated omission).
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    public record Result(String name, int requests, int errors, long[] latenciesNanos, double elapsedSeconds) {
+
+        public double percentileMillis(double percentile) {
+            if (latenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, Math.min(index, latenciesNanos.length - 1))] / 1e6;
+        }
+
+        public double throughput() {
+            return (requests - errors) / elapsedSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s %,6d requests  %,4d errors  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  %8.1f ok/s",
+                    name, requests, errors, percentileMillis(50), percentileMillis(99), percentileMillis(100),
+                    throughput());
+        }
+    }
+
+    /**
+     * Envía count requests a ratePerSecond. onSuccess recibe el cuerpo de cada respuesta 2xx
+     * (por ejemplo para juntar los IDs creados).
+     */
+    public static Result run(String name, HttpClient client, double ratePerSecond, int count,
+                             IntFunction<HttpRequest> request, Consumer<String> onSuccess) {
+        long intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        long[] latencies = new long[count];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong lastCompletion = new AtomicLong();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(count);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int slot = i;
+            inFlight.add(client.sendAsync(request.apply(i), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        long now = System.nanoTime();
+                        latencies[slot] = now - intended;
+                        lastCompletion.accumulateAndGet(now, Math::max);
+                        if (failure != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        } else {
+                            onSuccess.accept(response.body());
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+                .exceptionally(failure -> null)
+                .join();
+
+        Arrays.sort(latencies);
+        return new Result(name, count, errors.get(), latencies, (lastCompletion.get() - start) / 1e9);
+    }
+}
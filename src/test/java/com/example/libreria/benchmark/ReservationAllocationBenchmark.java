@@ -0,0 +1,62 @@
+package com.example.libreria.benchmark;
+
+import com.example.libreria.dto.ReservationRequestDTO;
+import com.example.libreria.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+/**
+ * Latencia y bytes asignados por reserva creada, medidos en un solo hilo con
+ * com.sun.management.ThreadMXBean. Sirve para comparar el camino de creación
+ * de reservas entre versiones.
+ * Se ejecuta con: ./mvnw test -Pbenchmark -Dtest=ReservationAllocationBenchmark
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservation_allocation_benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "logging.level.com.example.libreria=WARN"
+})
+class ReservationAllocationBenchmark {
+    
+    private static final long BOOK_ID = 900_002L;
+    private static final int WARMUP = 3_000;
+    private static final int MEASURED = 5_000;
+    
+    @Autowired
+    private ReservationService reservationService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void createReservationCost() {
+        jdbcTemplate.update("INSERT INTO books (external_id, title, price, stock_quantity, available_quantity) "
+                + "VALUES (?, 'Allocation Book', 12.50, ?, ?)", BOOK_ID, WARMUP + MEASURED, WARMUP + MEASURED);
+        Long userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        ReservationRequestDTO request = new ReservationRequestDTO(userId, BOOK_ID, 7, LocalDate.now());
+        
+        for (int i = 0; i < WARMUP; i++) {
+            reservationService.createReservation(request);
+        }
+        
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            reservationService.createReservation(request);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        
+        System.out.printf("[ReservationAllocationBenchmark] %,d reservations  %.1f us/op  %,d bytes/op%n",
+                MEASURED, elapsed / 1_000.0 / MEASURED, allocated / MEASURED);
+    }
+}
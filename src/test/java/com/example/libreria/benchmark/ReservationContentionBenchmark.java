@@ -0,0 +1,98 @@
+package com.example.libreria.benchmark;
+
+import com.example.libreria.dto.ReservationRequestDTO;
+import com.example.libreria.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 64 hilos reservan el mismo libro a la vez. Verifica que no haya sobreventa
+ * (reservas creadas == stock inicial, disponible == 0) y mide reservas por segundo.
+ * Se ejecuta con: ./mvnw test -Pbenchmark -Dtest=ReservationContentionBenchmark
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservation_contention_benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.hikari.maximum-pool-size=64",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "logging.level.com.example.libreria=WARN"
+})
+class ReservationContentionBenchmark {
+    
+    private static final long BOOK_ID = 900_001L;
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final int STOCK = 1_000;
+    
+    @Autowired
+    private ReservationService reservationService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void noOversellUnderContention() throws Exception {
+        jdbcTemplate.update("INSERT INTO books (external_id, title, price, stock_quantity, available_quantity) "
+                + "VALUES (?, 'Contended Book', 10.00, ?, ?)", BOOK_ID, STOCK, STOCK);
+        Long userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        reservationService.createReservation(
+                                new ReservationRequestDTO(userId, BOOK_ID, 7, LocalDate.now()));
+                        created.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+        executor.shutdown();
+        
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        Integer available = jdbcTemplate.queryForObject(
+                "SELECT available_quantity FROM books WHERE external_id = ?", Integer.class, BOOK_ID);
+        Integer reservations = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM reservations WHERE book_external_id = ?", Integer.class, BOOK_ID);
+        System.out.printf("[ReservationContentionBenchmark] threads=%d attempts=%,d created=%,d rejected=%,d failed=%,d "
+                        + "available=%d  %.2f s  %,.0f attempts/s%n",
+                THREADS, attempts, created.get(), rejected.get(), failed.get(), available, seconds, attempts / seconds);
+        
+        assertEquals(0, failed.get());
+        assertEquals(STOCK, created.get());
+        assertEquals(STOCK, reservations);
+        assertEquals(0, available);
+    }
+}
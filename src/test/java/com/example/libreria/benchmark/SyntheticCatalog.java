@@ -0,0 +1,41 @@
+package com.example.libreria.benchmark;
+
+import com.example.libreria.dto.ExternalBookDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Genera catálogos externos deterministas de cualquier tamaño para los benchmarks.
+ */
+public final class SyntheticCatalog {
+    
+    private SyntheticCatalog() {
+    }
+    
+    public static List<ExternalBookDTO> books(int size) {
+        return books(size, 0);
+    }
+    
+    // revision cambia el precio y el título para simular una actualización del catálogo
+    public static List<ExternalBookDTO> books(int size, int revision) {
+        List<ExternalBookDTO> books = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            books.add(book(i, revision));
+        }
+        return books;
+    }
+    
+    public static ExternalBookDTO book(long id, int revision) {
+        ExternalBookDTO dto = new ExternalBookDTO();
+        dto.setId(id);
+        dto.setTitle("Synthetic Book " + id + (revision > 0 ? " rev " + revision : ""));
+        dto.setAuthorName(List.of("Author " + (id % 997), "Co-Author " + (id % 13)));
+        dto.setFirstPublishYear(1900 + (int) (id % 125));
+        dto.setEditionCount(1 + (int) (id % 300));
+        dto.setHasFulltext(id % 2 == 0);
+        dto.setPrice(BigDecimal.valueOf(500 + (id % 2500) + revision * 100L, 2));
+        return dto;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.libreria.benchmark;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrencia máxima sostenible y memoria por request en vuelo, con hilos de plataforma
+ * (default) o virtuales. Cada request es un POST /api/books/sync cuyo catálogo no cambió:
+ * casi todo el tiempo el hilo queda bloqueado esperando el 304 de la API externa
+ * (stub con latencia fija), que es el caso donde el modelo de hilos importa.
+ *
+ * Se ejecuta una vez por modo y se comparan las salidas:
+ *   ./mvnw test -Pbenchmark -Dtest=ThreadModelBenchmark
+ *   ./mvnw test -Pjava21,benchmark -Dtest=ThreadModelBenchmark -DVIRTUAL_THREADS=true   (requiere Java 21)
+ *
+ * Un nivel de concurrencia se considera sostenible si no hay errores y el p99 se mantiene
+ * por debajo del doble de la latencia de la API externa.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:thread_model_benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "logging.level.com.example.libreria=WARN"
+})
+class ThreadModelBenchmark {
+
+    private static final Duration EXTERNAL_LATENCY = Duration.ofMillis(Long.getLong("stub.latency-ms", 200));
+    private static final int[] CONCURRENCY = {50, 100, 200, 400, 800, 1600};
+    private static final Duration STEP = Duration.ofSeconds(Long.getLong("load.step-seconds", 8));
+
+    private static final ExternalCatalogStub STUB = ExternalCatalogStub.fromFile(Path.of("books-db.json"))
+            .latency(EXTERNAL_LATENCY)
+            .start(0);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @DynamicPropertySource
+    static void externalApi(DynamicPropertyRegistry registry) {
+        registry.add("external.api.books.url", STUB::booksUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void maxSustainableConcurrency() {
+        // Primera sincronización: guarda el ETag, las siguientes reciben 304
+        client.sendAsync(syncRequest(), HttpResponse.BodyHandlers.discarding()).join();
+        boolean virtualActive = virtualThreads && Runtime.version().feature() >= 21;
+        System.out.printf("[ThreadModelBenchmark] Java %d, %s threads, external latency %d ms%n",
+                Runtime.version().feature(), virtualActive ? "virtual" : "platform", EXTERNAL_LATENCY.toMillis());
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int maxSustainable = 0;
+        for (int concurrency : CONCURRENCY) {
+            System.gc();
+            long heapIdle = memory.getHeapMemoryUsage().getUsed();
+            int threadsIdle = threads.getThreadCount();
+
+            Step step = runStep(concurrency, heapIdle);
+            boolean sustainable = step.errors == 0 && step.p99Millis < 2 * EXTERNAL_LATENCY.toMillis();
+            if (sustainable) {
+                maxSustainable = concurrency;
+            }
+            System.out.printf("[ThreadModelBenchmark] concurrency %5d  %7.1f req/s  p50 %7.1f ms  p99 %7.1f ms  "
+                            + "errors %d  JVM threads %4d (+%d)  heap/in-flight %6.1f KB  %s%n",
+                    concurrency, step.throughput, step.p50Millis, step.p99Millis, step.errors,
+                    step.peakThreads, step.peakThreads - threadsIdle, step.heapPerInFlightBytes / 1024.0,
+                    sustainable ? "ok" : "saturated");
+        }
+        System.out.printf("[ThreadModelBenchmark] max sustainable concurrency: %d%n", maxSustainable);
+    }
+
+    private record Step(double throughput, double p50Millis, double p99Millis, int errors,
+                        int peakThreads, double heapPerInFlightBytes) {
+    }
+
+    // Modelo cerrado: cada cliente manda el siguiente request apenas recibe la respuesta anterior
+    private Step runStep(int concurrency, long heapIdle) {
+        long end = System.nanoTime() + STEP.toNanos();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<Void>> clients = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            clients.add(loop(end, latencies, errors));
+        }
+
+        // Muestras a mitad del paso, con todos los clientes en vuelo
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        sleep(STEP.dividedBy(2));
+        int peakThreads = threads.getThreadCount();
+        long heapLoaded = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        long start = end - STEP.toNanos();
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Step(sorted.length / seconds, percentile(sorted, 50), percentile(sorted, 99), errors.get(),
+                peakThreads, Math.max(0, heapLoaded - heapIdle) / (double) concurrency);
+    }
+
+    private CompletableFuture<Void> loop(long end, ConcurrentLinkedQueue<Long> latencies, AtomicInteger errors) {
+        if (System.nanoTime() >= end) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(syncRequest(), HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                    } else {
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(end, latencies, errors));
+    }
+
+    private HttpRequest syncRequest() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/sync"))
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
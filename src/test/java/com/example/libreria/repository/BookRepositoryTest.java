@@ -0,0 +1,85 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+class BookRepositoryTest {
+
+    private static final long BOOK_ID = 930_001L;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        Book book = new Book();
+        book.setExternalId(BOOK_ID);
+        book.setTitle("Libro de stock");
+        book.setPrice(new BigDecimal("10.00"));
+        book.setStockQuantity(5);
+        book.setAvailableQuantity(5);
+        book.markNew();
+        entityManager.persist(book);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testCatalogUpdate_KeepsStockChangedAfterLoading() {
+        Book book = entityManager.find(Book.class, BOOK_ID);
+        // Una reserva descuenta un ejemplar mientras la sincronización tiene el libro cargado
+        jdbcTemplate.update("UPDATE books SET available_quantity = available_quantity - 1 WHERE external_id = ?", BOOK_ID);
+
+        book.setTitle("Libro de stock (2a ed.)");
+        entityManager.flush();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT title, stock_quantity, available_quantity FROM books WHERE external_id = ?", BOOK_ID);
+        assertEquals("Libro de stock (2a ed.)", row.get("TITLE"));
+        assertEquals(5, row.get("STOCK_QUANTITY"));
+        assertEquals(4, row.get("AVAILABLE_QUANTITY"));
+    }
+
+    @Test
+    void testUpdateStockAndAvailableQuantity_KeepsReservedCopies() {
+        // 2 reservados
+        jdbcTemplate.update("UPDATE books SET available_quantity = 3 WHERE external_id = ?", BOOK_ID);
+
+        assertEquals(1, bookRepository.updateStockAndAvailableQuantity(BOOK_ID, 8));
+        assertEquals(Map.of("STOCK_QUANTITY", 8, "AVAILABLE_QUANTITY", 6), stock());
+
+        assertEquals(1, bookRepository.updateStockAndAvailableQuantity(BOOK_ID, 2));
+        assertEquals(Map.of("STOCK_QUANTITY", 2, "AVAILABLE_QUANTITY", 0), stock());
+    }
+
+    @Test
+    void testUpdateStockAndAvailableQuantity_BelowReservedChangesNothing() {
+        jdbcTemplate.update("UPDATE books SET available_quantity = 3 WHERE external_id = ?", BOOK_ID);
+
+        assertEquals(0, bookRepository.updateStockAndAvailableQuantity(BOOK_ID, 1));
+        assertEquals(0, bookRepository.updateStockAndAvailableQuantity(999_999L, 10));
+        assertEquals(Map.of("STOCK_QUANTITY", 5, "AVAILABLE_QUANTITY", 3), stock());
+    }
+
+    private Map<String, Object> stock() {
+        return jdbcTemplate.queryForMap(
+                "SELECT stock_quantity, available_quantity FROM books WHERE external_id = ?", BOOK_ID);
+    }
+}
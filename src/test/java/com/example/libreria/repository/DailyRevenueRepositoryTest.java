@@ -0,0 +1,137 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.dto.RevenueTotalsDTO;
+import com.example.libreria.model.Book;
+import com.example.libreria.model.DailyRevenue;
+import com.example.libreria.model.DailyRevenueId;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+class DailyRevenueRepositoryTest {
+
+    // Lejos de las fechas de data.sql para que los totales del rango sean solo los del test
+    private static final LocalDate DAY = LocalDate.of(2031, 3, 10);
+
+    @Autowired
+    private DailyRevenueRepository dailyRevenueRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("Lectora de reportes");
+        user.setEmail("reportes@example.com");
+        entityManager.persist(user);
+
+        book = new Book();
+        book.setExternalId(920_001L);
+        book.setTitle("Libro de reportes");
+        book.setPrice(new BigDecimal("10.00"));
+        book.setStockQuantity(5);
+        book.setAvailableQuantity(5);
+        book.markNew();
+        entityManager.persist(book);
+        entityManager.flush();
+    }
+
+    @Test
+    void testAddAll_InsertsThenIncrementsExistingRow() {
+        dailyRevenueRepository.addAll(List.of(delta(DAY, 1, "70.00", 0, "0.00")));
+        dailyRevenueRepository.addAll(List.of(delta(DAY, 2, "140.00", 1, "4.50")));
+
+        DailyRevenue row = dailyRevenueRepository.findById(new DailyRevenueId(DAY, book.getExternalId(), user.getId()))
+                .orElseThrow();
+        assertEquals(3, row.getReservations());
+        assertEquals(new BigDecimal("210.00"), row.getRevenue());
+        assertEquals(1, row.getReturns());
+        assertEquals(1, row.getLateReturns());
+        assertEquals(new BigDecimal("4.50"), row.getLateFees());
+    }
+
+    @Test
+    void testFindTotals_GroupedByDayBookAndUser() {
+        dailyRevenueRepository.addAll(List.of(
+                delta(DAY, 1, "70.00", 0, "0.00"),
+                delta(DAY.plusDays(1), 2, "30.00", 1, "1.50"),
+                delta(DAY.plusDays(5), 4, "99.00", 0, "0.00")));
+
+        List<RevenueTotalsDTO> byDay = dailyRevenueRepository.findTotalsByDay(DAY, DAY.plusDays(1));
+        assertEquals(2, byDay.size());
+        assertEquals("2031-03-10", byDay.get(0).getKey());
+        assertNull(byDay.get(0).getLabel());
+        assertEquals(2L, byDay.get(1).getReservations());
+
+        List<RevenueTotalsDTO> byBook = dailyRevenueRepository.findTotalsByBook(DAY, DAY.plusDays(1));
+        assertEquals(1, byBook.size());
+        assertEquals("920001", byBook.get(0).getKey());
+        assertEquals("Libro de reportes", byBook.get(0).getLabel());
+        assertEquals(0, new BigDecimal("100.00").compareTo(byBook.get(0).getRevenue()));
+
+        List<RevenueTotalsDTO> byUser = dailyRevenueRepository.findTotalsByUser(DAY, DAY.plusDays(1));
+        assertEquals(1, byUser.size());
+        assertEquals(String.valueOf(user.getId()), byUser.get(0).getKey());
+        assertEquals("Lectora de reportes", byUser.get(0).getLabel());
+        assertEquals(1L, byUser.get(0).getLateReturns());
+        assertEquals(0, new BigDecimal("1.50").compareTo(byUser.get(0).getLateFees()));
+    }
+
+    @Test
+    void testRebuild_MatchesReservations() {
+        persistReservation(DAY, null, null);
+        persistReservation(DAY, DAY.plusDays(7), BigDecimal.ZERO);
+        persistReservation(DAY, DAY.plusDays(9), new BigDecimal("3.00"));
+        entityManager.flush();
+
+        assertTrue(dailyRevenueRepository.rebuild() > 0);
+
+        RevenueTotalsDTO started = dailyRevenueRepository.findTotalsByDay(DAY, DAY).get(0);
+        assertEquals(3L, started.getReservations());
+        assertEquals(0, new BigDecimal("210.00").compareTo(started.getRevenue()));
+        RevenueTotalsDTO onTime = dailyRevenueRepository.findTotalsByDay(DAY.plusDays(7), DAY.plusDays(7)).get(0);
+        assertEquals(1L, onTime.getReturns());
+        assertEquals(0L, onTime.getLateReturns());
+        RevenueTotalsDTO late = dailyRevenueRepository.findTotalsByDay(DAY.plusDays(9), DAY.plusDays(9)).get(0);
+        assertEquals(1L, late.getLateReturns());
+        assertEquals(0, new BigDecimal("3.00").compareTo(late.getLateFees()));
+    }
+
+    private DailyRevenue delta(LocalDate date, int reservations, String revenue, int lateReturns, String lateFees) {
+        return new DailyRevenue(new DailyRevenueId(date, book.getExternalId(), user.getId()), reservations,
+                new BigDecimal(revenue), lateReturns, lateReturns, new BigDecimal(lateFees));
+    }
+
+    private void persistReservation(LocalDate startDate, LocalDate returnDate, BigDecimal lateFee) {
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setBook(book);
+        reservation.setRentalDays(7);
+        reservation.setStartDate(startDate);
+        reservation.setDailyRate(book.getPrice());
+        reservation.setTotalFee(book.getPrice().multiply(BigDecimal.valueOf(7)));
+        if (returnDate != null) {
+            reservation.setActualReturnDate(returnDate);
+            reservation.setLateFee(lateFee);
+            reservation.setStatus(Reservation.ReservationStatus.RETURNED);
+        } else {
+            reservation.setStatus(Reservation.ReservationStatus.ACTIVE);
+        }
+        entityManager.persist(reservation);
+    }
+}
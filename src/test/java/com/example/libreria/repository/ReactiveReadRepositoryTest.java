@@ -0,0 +1,92 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.dto.BookResponseDTO;
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.dto.UserResponseDTO;
+import com.example.libreria.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// JPA (JDBC) y R2DBC apuntan a la misma base en memoria: lo que se escribe por JDBC se lee por R2DBC
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive_read_test;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive_read_test;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class ReactiveReadRepositoryTest {
+
+    @Autowired
+    private ReactiveReadRepository reactiveReadRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM reservations");
+        jdbcTemplate.update("DELETE FROM book_authors");
+        jdbcTemplate.update("DELETE FROM books");
+        jdbcTemplate.update("INSERT INTO books (external_id, title, price, stock_quantity, available_quantity) VALUES "
+                + "(10, 'Two Authors', 15.00, 3, 2), (20, 'No Authors', 9.50, 1, 1), (30, 'One Author', 12.00, 1, 0)");
+        jdbcTemplate.update("INSERT INTO book_authors (book_id, author_name) VALUES "
+                + "(10, 'Autor A'), (10, 'Autor B'), (30, 'Autor C')");
+        userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        LocalDate start = LocalDate.now().minusDays(10);
+        jdbcTemplate.update("INSERT INTO reservations (user_id, book_external_id, rental_days, start_date, "
+                        + "expected_return_date, daily_rate, total_fee, late_fee, status, created_at) VALUES "
+                        + "(?, 10, 5, ?, ?, 15.00, 75.00, 0, 'OVERDUE', CURRENT_TIMESTAMP), "
+                        + "(?, 30, 20, ?, ?, 12.00, 240.00, 0, 'ACTIVE', CURRENT_TIMESTAMP)",
+                userId, start, start.plusDays(5), userId, start, start.plusDays(20));
+    }
+
+    @Test
+    void testFindBooksAfter_GroupsAuthorsPerBook() {
+        List<BookResponseDTO> books = reactiveReadRepository.findBooksAfter(0).collectList().block();
+
+        assertEquals(List.of(10L, 20L, 30L), books.stream().map(BookResponseDTO::getExternalId).toList());
+        assertEquals(List.of("Autor A", "Autor B"), books.get(0).getAuthorName().stream().sorted().toList());
+        assertEquals(List.of(), books.get(1).getAuthorName());
+        assertEquals(List.of("Autor C"), books.get(2).getAuthorName());
+        assertEquals(0, new BigDecimal("9.50").compareTo(books.get(1).getPrice()));
+
+        assertEquals(List.of(30L), reactiveReadRepository.findBooksAfter(20).map(BookResponseDTO::getExternalId)
+                .collectList().block());
+        assertNull(reactiveReadRepository.findBookByExternalId(99L).block());
+    }
+
+    @Test
+    void testFindUsersAfter_ReturnsSeedUsersInIdOrder() {
+        List<UserResponseDTO> users = reactiveReadRepository.findUsersAfter(0).collectList().block();
+
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class), users.size());
+        assertEquals(userId, users.get(0).getId());
+        assertNotNull(users.get(0).getCreatedAt());
+        assertEquals(users.get(0).getEmail(), reactiveReadRepository.findUserById(userId).block().getEmail());
+    }
+
+    @Test
+    void testFindReservations_JoinsUserAndBookAndFiltersByStatus() {
+        List<ReservationResponseDTO> all = reactiveReadRepository.findReservationsByUserIdAfter(userId, 0)
+                .collectList().block();
+        assertEquals(2, all.size());
+        assertEquals("Two Authors", all.get(0).getBookTitle());
+        assertNotNull(all.get(0).getUserName());
+
+        List<ReservationResponseDTO> overdue = reactiveReadRepository
+                .findReservationsByStatusAfter(Reservation.ReservationStatus.OVERDUE, 0).collectList().block();
+        assertEquals(1, overdue.size());
+        assertEquals(Reservation.ReservationStatus.OVERDUE, overdue.get(0).getStatus());
+        assertEquals(10L, overdue.get(0).getBookExternalId());
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.model.Book;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ReservationRepositoryTest {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = new User();
+        user.setName("Lector de prueba");
+        user.setEmail("lector.prueba@example.com");
+        entityManager.persist(user);
+    }
+
+    @Test
+    void testFindResponsesAfter_QueryCountIndependentOfSize() {
+        persistReservations(1, 3, LocalDate.now());
+        assertEquals(3, countStatements(() -> reservationRepository.findResponsesAfter(0L, Limit.of(100))).size());
+        long smallPage = statistics.getPrepareStatementCount();
+
+        persistReservations(4, 40, LocalDate.now());
+        assertEquals(40, countStatements(() -> reservationRepository.findResponsesAfter(0L, Limit.of(100))).size());
+
+        assertEquals(1, smallPage);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindResponsesByUserIdAfter_SingleQuery() {
+        persistReservations(1, 25, LocalDate.now());
+
+        List<ReservationResponseDTO> result = countStatements(
+                () -> reservationRepository.findResponsesByUserIdAfter(user.getId(), 0L, Limit.of(10)));
+
+        assertEquals(10, result.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(user.getName(), result.get(0).getUserName());
+        assertEquals("Libro 1", result.get(0).getBookTitle());
+    }
+
+    @Test
+    void testFindResponsesByStatusAfter_SingleQuery() {
+        persistReservations(1, 25, LocalDate.now());
+
+        List<ReservationResponseDTO> result = countStatements(() -> reservationRepository
+                .findResponsesByStatusAfter(Reservation.ReservationStatus.ACTIVE, 0L, Limit.of(100)));
+
+        assertEquals(25, result.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testMarkOverdue_OnlyActivePastDue() {
+        persistReservations(1, 5, LocalDate.now().minusDays(30));
+        persistReservations(6, 10, LocalDate.now());
+        entityManager.flush();
+
+        List<Long> candidates = reservationRepository.findOverdueCandidateIds(LocalDate.now(), Limit.of(3));
+        assertEquals(3, candidates.size());
+        assertEquals(3, reservationRepository.markOverdue(candidates));
+        // Una segunda pasada sobre los mismos ids no cambia nada: ya no están ACTIVE
+        assertEquals(0, reservationRepository.markOverdue(candidates));
+
+        candidates = reservationRepository.findOverdueCandidateIds(LocalDate.now(), Limit.of(100));
+        assertEquals(2, candidates.size());
+        assertEquals(2, reservationRepository.markOverdue(candidates));
+        assertTrue(reservationRepository.findOverdueCandidateIds(LocalDate.now(), Limit.of(100)).isEmpty());
+
+        List<ReservationResponseDTO> overdue = countStatements(() -> reservationRepository
+                .findResponsesByStatusAfter(Reservation.ReservationStatus.OVERDUE, 0L, Limit.of(100)));
+        assertEquals(5, overdue.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testInsertAll_AssignsGeneratedIdsInBatches() {
+        persistReservations(1, 2, LocalDate.now());
+        entityManager.flush();
+        Book book = entityManager.find(Book.class, 900_001L);
+
+        List<Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Reservation reservation = new Reservation();
+            reservation.setUser(user);
+            reservation.setBook(book);
+            reservation.setRentalDays(3);
+            reservation.setStartDate(LocalDate.now());
+            reservation.setExpectedReturnDate(LocalDate.now().plusDays(3));
+            reservation.setDailyRate(book.getPrice());
+            reservation.setTotalFee(new BigDecimal("30.00"));
+            reservations.add(reservation);
+        }
+        reservationRepository.insertAll(reservations);
+
+        assertEquals(120, reservations.stream().map(Reservation::getId).distinct().count());
+        assertTrue(reservations.stream().allMatch(reservation -> reservation.getCreatedAt() != null));
+        List<ReservationResponseDTO> rows = countStatements(() -> reservationRepository
+                .findResponsesByUserIdAfter(user.getId(), 0L, Limit.of(200)));
+        assertEquals(122, rows.size());
+        assertEquals(reservations.get(119).getId(), rows.get(121).getId());
+        assertEquals(Reservation.ReservationStatus.ACTIVE, rows.get(121).getStatus());
+        assertEquals(0, BigDecimal.ZERO.compareTo(rows.get(121).getLateFee()));
+    }
+
+    @Test
+    void testFindWithUserAndBookByIdIn_SingleQuery() {
+        persistReservations(1, 20, LocalDate.now());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Reservation> result = reservationRepository.findWithUserAndBookByIdIn(
+                reservationRepository.findAll().stream().map(Reservation::getId).limit(15).toList());
+        statistics.clear();
+        result.forEach(reservation -> {
+            assertNotNull(reservation.getUser().getName());
+            assertNotNull(reservation.getBook().getTitle());
+        });
+
+        assertEquals(15, result.size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testStreamResponses_FiltersByStatusAndDateRange() {
+        persistReservations(1, 5, LocalDate.of(2025, 1, 10));
+        persistReservations(6, 8, LocalDate.of(2025, 3, 10));
+        entityManager.flush();
+        reservationRepository.markOverdue(reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getBook().getExternalId() == 900_002L)
+                .map(Reservation::getId).toList());
+        entityManager.clear();
+
+        List<ReservationResponseDTO> active;
+        try (Stream<ReservationResponseDTO> rows = reservationRepository.streamResponses(
+                Reservation.ReservationStatus.ACTIVE, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31))) {
+            active = rows.toList();
+        }
+        long all;
+        try (Stream<ReservationResponseDTO> rows = reservationRepository.streamResponses(null, null, null)) {
+            all = rows.count();
+        }
+
+        assertEquals(4, active.size());
+        assertTrue(active.stream().allMatch(dto -> dto.getStartDate().getMonthValue() == 1));
+        assertEquals(8, all);
+    }
+
+    private List<ReservationResponseDTO> countStatements(Supplier<List<ReservationResponseDTO>> query) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        List<ReservationResponseDTO> result = query.get();
+        // Se tocan todos los campos que antes venían de asociaciones lazy
+        result.forEach(dto -> {
+            assertNotNull(dto.getUserName());
+            assertNotNull(dto.getBookTitle());
+        });
+        return result;
+    }
+
+    private void persistReservations(int from, int to, LocalDate startDate) {
+        for (int i = from; i <= to; i++) {
+            Book book = new Book();
+            book.setExternalId(900_000L + i);
+            book.setTitle("Libro " + i);
+            book.setAuthorName(List.of("Autor " + i));
+            book.setPrice(new BigDecimal("10.00"));
+            book.setStockQuantity(1);
+            book.setAvailableQuantity(0);
+            book.markNew();
+            entityManager.persist(book);
+
+            Reservation reservation = new Reservation();
+            reservation.setUser(user);
+            reservation.setBook(book);
+            reservation.setRentalDays(7);
+            reservation.setStartDate(startDate);
+            reservation.setDailyRate(book.getPrice());
+            reservation.setTotalFee(book.getPrice().multiply(BigDecimal.valueOf(7)));
+            entityManager.persist(reservation);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.libreria.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * db/sequence-ids.sql sobre el esquema que generaba Hibernate con IDENTITY, más las secuencias
+ * que agrega ddl-auto=update al pasar las entidades a SEQUENCE.
+ */
+class SequenceIdsMigrationTest {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:sequence_ids_migration;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, name VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE reservations (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "user_id BIGINT)");
+        jdbcTemplate.execute("CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE SEQUENCE reservations_seq START WITH 1 INCREMENT BY 50");
+        for (int i = 0; i < 130; i++) {
+            jdbcTemplate.update("INSERT INTO users (name) VALUES ('Lector')");
+        }
+        jdbcTemplate.update("INSERT INTO reservations (user_id) VALUES (1)");
+    }
+
+    @Test
+    void testMigration_NextBlockStartsAfterExistingIds() {
+        migrate();
+
+        // El optimizador pooled toma el valor de la secuencia como el último ID del bloque
+        Long hi = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class);
+        assertEquals(180L, hi);
+        assertEquals(51L, jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR reservations_seq", Long.class));
+        assertEquals("NO", jdbcTemplate.queryForObject("SELECT is_identity FROM information_schema.columns "
+                + "WHERE table_name = 'USERS' AND column_name = 'ID'", String.class));
+    }
+
+    @Test
+    void testMigration_IsIdempotentAndNeverMovesBack() {
+        migrate();
+        jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class);
+        jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class);
+
+        migrate();
+
+        assertEquals(280L, jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class));
+    }
+
+    @Test
+    void testMigration_SqlInsertsWithoutIdUseTheSequence() {
+        migrate();
+
+        jdbcTemplate.update("INSERT INTO users (name) VALUES ('Nuevo')");
+
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM users WHERE name = 'Nuevo'", Long.class);
+        assertTrue(id > 130);
+    }
+
+    private void migrate() {
+        new ResourceDatabasePopulator(new ClassPathResource("db/sequence-ids.sql")).execute(dataSource);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.libreria.repository;
+
+import com.example.libreria.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testInsertAll_AssignsIdsAcrossBatches() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            users.add(user("lote" + i + "@example.com"));
+        }
+
+        userRepository.insertAll(users);
+
+        assertEquals(120, users.stream().map(User::getId).distinct().count());
+        assertTrue(users.stream().allMatch(user -> user.getCreatedAt() != null));
+        assertEquals("lote119@example.com", userRepository.findById(users.get(119).getId()).orElseThrow().getEmail());
+    }
+
+    @Test
+    void testInsertAll_DuplicateEmailFailsTheBatch() {
+        userRepository.insertAll(List.of(user("repetido@example.com")));
+
+        assertThrows(DuplicateKeyException.class,
+                () -> userRepository.insertAll(List.of(user("otro@example.com"), user("repetido@example.com"))));
+    }
+
+    @Test
+    void testFindExistingEmails_ReturnsOnlyTakenOnes() {
+        userRepository.insertAll(List.of(user("uno@example.com"), user("dos@example.com")));
+
+        assertEquals(Set.of("uno@example.com"),
+                userRepository.findExistingEmails(List.of("uno@example.com", "libre@example.com")));
+    }
+
+    @Test
+    void testSaveAll_InsertsInBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            users.add(user("jpa" + i + "@example.com"));
+        }
+        statistics.clear();
+
+        userRepository.saveAll(users);
+        userRepository.flush();
+
+        // Con IDENTITY eran 120 INSERT; ahora tres lotes de hasta 50 y pocas llamadas a la secuencia
+        assertTrue(statistics.getPrepareStatementCount() <= 6, "sentencias: " + statistics.getPrepareStatementCount());
+        assertEquals(120, users.stream().map(User::getId).distinct().count());
+    }
+
+    @Test
+    void testIds_DoNotCollideAcrossInsertPaths() {
+        // data.sql carga los usuarios 1 a 5 con ID explícito; la secuencia arranca después
+        User saved = userRepository.saveAndFlush(user("jpa@example.com"));
+        jdbcTemplate.update("INSERT INTO users (name, email, created_at) VALUES ('Lector', 'sql@example.com', NOW())");
+        List<User> batch = List.of(user("lote@example.com"));
+        userRepository.insertAll(batch);
+
+        Long sqlId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'sql@example.com'", Long.class);
+        assertTrue(saved.getId() > 5);
+        assertEquals(3, Set.of(saved.getId(), sqlId, batch.get(0).getId()).size());
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setName("Lector");
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.libreria.service;
+
+import com.example.libreria.config.CacheConfig;
+import com.example.libreria.dto.ExternalBookDTO;
+import com.example.libreria.dto.ReservationRequestDTO;
+import com.example.libreria.dto.ReturnBookRequestDTO;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:book_cache_test;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class BookCacheTest {
+
+    private static final long BOOK_ID = 700_001L;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BookSyncWriter bookSyncWriter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CaffeineCache booksCache;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM reservations");
+        jdbcTemplate.update("DELETE FROM book_authors");
+        jdbcTemplate.update("DELETE FROM books");
+        jdbcTemplate.update("INSERT INTO books (external_id, title, price, stock_quantity, available_quantity) "
+                + "VALUES (?, 'Cached Book', 12.50, 2, 2)", BOOK_ID);
+        booksCache = (CaffeineCache) ((TransactionAwareCacheDecorator)
+                cacheManager.getCache(CacheConfig.BOOKS_CACHE)).getTargetCache();
+        booksCache.clear();
+    }
+
+    @Test
+    void testGetBookByExternalId_SecondReadIsServedFromCache() {
+        CacheStats before = booksCache.getNativeCache().stats();
+
+        bookService.getBookByExternalId(BOOK_ID);
+        jdbcTemplate.update("UPDATE books SET title = 'Changed behind the cache' WHERE external_id = ?", BOOK_ID);
+
+        assertEquals("Cached Book", bookService.getBookByExternalId(BOOK_ID).getTitle());
+        CacheStats after = booksCache.getNativeCache().stats();
+        assertEquals(1, after.missCount() - before.missCount());
+        assertEquals(1, after.hitCount() - before.hitCount());
+    }
+
+    @Test
+    void testReservationAndReturn_EvictStockFigures() {
+        Long userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        assertEquals(2, bookService.getBookByExternalId(BOOK_ID).getAvailableQuantity());
+
+        Long reservationId = reservationService.createReservation(
+                new ReservationRequestDTO(userId, BOOK_ID, 3, LocalDate.now())).getId();
+        assertEquals(1, bookService.getBookByExternalId(BOOK_ID).getAvailableQuantity());
+
+        reservationService.createReservation(new ReservationRequestDTO(userId, BOOK_ID, 3, LocalDate.now()));
+        assertEquals(0, bookService.getBookByExternalId(BOOK_ID).getAvailableQuantity());
+        // La caché no puede habilitar una tercera reserva
+        assertThrows(IllegalStateException.class, () -> reservationService.createReservation(
+                new ReservationRequestDTO(userId, BOOK_ID, 3, LocalDate.now())));
+
+        reservationService.returnBook(reservationId, new ReturnBookRequestDTO(LocalDate.now().plusDays(3)));
+        assertEquals(1, bookService.getBookByExternalId(BOOK_ID).getAvailableQuantity());
+    }
+
+    @Test
+    void testUpdateStockAndSync_EvictEntry() {
+        bookService.getBookByExternalId(BOOK_ID);
+        bookService.updateStock(BOOK_ID, 5);
+        assertEquals(5, bookService.getBookByExternalId(BOOK_ID).getStockQuantity());
+
+        bookSyncWriter.writeChunk(List.of(new ExternalBookDTO(BOOK_ID, null, null, "Cached Book (2nd)",
+                List.of("Autor"), null, new BigDecimal("14.00"))));
+        assertEquals("Cached Book (2nd)", bookService.getBookByExternalId(BOOK_ID).getTitle());
+    }
+}
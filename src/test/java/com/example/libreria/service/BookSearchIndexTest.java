@@ -0,0 +1,118 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.BookSearchResultDTO;
+import com.example.libreria.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+    
+    private BookSearchIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        // Sin base: los libros se indexan directamente
+        index = new BookSearchIndex(null);
+        index.index(1L, "The Lord of the Rings", List.of("J. R. R. Tolkien"));
+        index.index(2L, "The Hobbit", List.of("J. R. R. Tolkien"));
+        index.index(3L, "Tolkien: A Biography", List.of("Humphrey Carpenter"));
+        index.index(4L, "Cien años de soledad", List.of("Gabriel García Márquez"));
+        index.index(5L, "The Lord of the Flies", List.of("William Golding"));
+    }
+    
+    @Test
+    void testSearch_TitleRanksAboveAuthor() {
+        List<BookSearchResultDTO> results = index.search("tolkien", 10);
+        
+        assertEquals(List.of(3L, 2L, 1L), ids(results));
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+        // A igual puntaje, primero el título más corto
+        assertEquals(results.get(1).getScore(), results.get(2).getScore());
+        assertEquals("The Hobbit", results.get(1).getTitle());
+    }
+    
+    @Test
+    void testSearch_AllTermsMustMatch() {
+        assertEquals(List.of(1L), ids(index.search("lord rings", 10)));
+        assertEquals(List.of(), ids(index.search("lord hobbit", 10)));
+    }
+    
+    @Test
+    void testSearch_PrefixMatchesWhileTyping() {
+        assertEquals(List.of(2L), ids(index.search("hob", 10)));
+        assertEquals(List.of(5L), ids(index.search("lord of the f", 10)));
+    }
+    
+    @Test
+    void testSearch_ToleratesTyposAndAccents() {
+        assertEquals(List.of(3L, 2L, 1L), ids(index.search("Tolkein", 10)));
+        assertEquals(List.of(4L), ids(index.search("garcia marquez soledda", 10)));
+        assertEquals(List.of(4L), ids(index.search("AÑOS", 10)));
+        // Las palabras cortas no admiten errores: "hobit" sí, "hob" solo como prefijo
+        assertEquals(List.of(2L), ids(index.search("hobit", 10)));
+        assertEquals(List.of(), ids(index.search("lrd", 10)));
+    }
+    
+    @Test
+    void testIndex_ReplacesPreviousVersion() {
+        index.index(2L, "The Hobbit, or There and Back Again", List.of("J. R. R. Tolkien"));
+        assertEquals(List.of(2L), ids(index.search("back again", 10)));
+        
+        index.index(2L, "El hobbit", List.of("J. R. R. Tolkien"));
+        assertEquals(List.of(), ids(index.search("again", 10)));
+        assertEquals(List.of(2L), ids(index.search("el hobbit", 10)));
+        assertEquals(5, index.size());
+    }
+    
+    @Test
+    void testSearch_LimitKeepsBestResults() {
+        assertEquals(List.of(3L), ids(index.search("tolkien", 1)));
+        assertThrows(IllegalArgumentException.class, () -> index.search(" ¿? ", 10));
+    }
+    
+    @Test
+    void testIndexAfterCommit_WaitsForCommit() {
+        Book book = new Book();
+        book.setExternalId(6L);
+        book.setTitle("Rayuela");
+        book.setAuthorName(List.of("Julio Cortázar"));
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.indexAfterCommit(List.of(book));
+            assertEquals(List.of(), ids(index.search("rayuela", 10)));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(6L), ids(index.search("cortazar", 10)));
+    }
+    
+    @Test
+    void testEditDistance_CountsTranspositionAsOneEdit() {
+        assertEquals(1, BookSearchIndex.editDistance("tolkein", "tolkien", 2));
+        assertEquals(1, BookSearchIndex.editDistance("marqez", "marquez", 1));
+        // Corta al superar el máximo
+        assertEquals(2, BookSearchIndex.editDistance("hobbit", "rabbit", 1));
+    }
+    
+    @Test
+    void testLettersOf_DigitsAndLettersUseSeparateBits() {
+        // Con un desplazamiento módulo 64, '0' y 'p' caían en el mismo bit
+        assertNotEquals(BookSearchIndex.lettersOf("0"), BookSearchIndex.lettersOf("p"));
+        assertEquals(1L, BookSearchIndex.lettersOf("aaa"));
+        assertEquals(1L << 26 | 1L << 35, BookSearchIndex.lettersOf("09"));
+        // Cualquier otro carácter comparte un único bit
+        assertEquals(BookSearchIndex.lettersOf("ß"), BookSearchIndex.lettersOf("ø"));
+    }
+    
+    private static List<Long> ids(List<BookSearchResultDTO> results) {
+        return results.stream().map(BookSearchResultDTO::getExternalId).toList();
+    }
+}
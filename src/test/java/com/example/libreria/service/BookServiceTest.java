@@ -1,23 +1,44 @@
 package com.example.libreria.service;
 
+import com.example.libreria.dto.CursorPageDTO;
+import com.example.libreria.dto.BookFacetsDTO;
 import com.example.libreria.dto.BookResponseDTO;
 import com.example.libreria.dto.ExternalBookDTO;
+import com.example.libreria.dto.ExternalCatalogDTO;
+import com.example.libreria.dto.SyncResultDTO;
 import com.example.libreria.model.Book;
+import com.example.libreria.model.SyncCheckpoint;
 import com.example.libreria.repository.BookRepository;
+import com.example.libreria.repository.SyncCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +50,30 @@ class BookServiceTest {
     @Mock
     private ExternalBookService externalBookService;
     
+    @Mock
+    private BookSyncWriter bookSyncWriter;
+    
+    @Mock
+    private SyncCheckpointRepository syncCheckpointRepository;
+    
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    @Mock
+    private CacheManager cacheManager;
+    
+    @Mock
+    private InventoryLedger inventoryLedger;
+    
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+    
+    @Mock
+    private CatalogFacetIndex catalogFacetIndex;
+    
+    @Mock
+    private ReadVersions readVersions;
+    
     @InjectMocks
     private BookService bookService;
     
@@ -51,25 +96,105 @@ class BookServiceTest {
     }
     
     @Test
-    void testSyncBooksFromExternalApi_NewBook() {
-        when(externalBookService.fetchAllBooks()).thenReturn(Arrays.asList(externalBookDTO));
-        when(bookRepository.findByExternalId(258027L)).thenReturn(Optional.empty());
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+    void testSyncBooksFromExternalApi_SingleChunk() {
+        when(externalBookService.fetchAllBooksIfModified(null, null))
+                .thenReturn(new ExternalCatalogDTO(Arrays.asList(externalBookDTO), false, "\"v1\"", null));
+        when(bookSyncWriter.writeChunk(anyList())).thenReturn(new SyncResultDTO(1, 0, 0, false));
         
-        bookService.syncBooksFromExternalApi();
+        SyncResultDTO result = bookService.syncBooksFromExternalApi();
         
-        verify(bookRepository, times(1)).save(any(Book.class));
+        verify(bookSyncWriter, times(1)).writeChunk(Arrays.asList(externalBookDTO));
+        assertEquals(1, result.getCreated());
+        assertEquals(0, result.getUpdated());
+        assertEquals(1.0, meterRegistry.counter("libreria.books.sync.books",
+                "mode", "full", "result", "created").count());
+        // El ETag se guarda para el próximo pedido condicional
+        ArgumentCaptor<SyncCheckpoint> captor = ArgumentCaptor.forClass(SyncCheckpoint.class);
+        verify(syncCheckpointRepository).save(captor.capture());
+        assertEquals("\"v1\"", captor.getValue().getEtag());
+        // Fila propia: no comparte el checkpoint de la sincronización por flujo
+        assertEquals("books-full", captor.getValue().getName());
+        verify(syncCheckpointRepository, never()).findById("books");
     }
     
     @Test
-    void testSyncBooksFromExternalApi_ExistingBook() {
-        when(externalBookService.fetchAllBooks()).thenReturn(Arrays.asList(externalBookDTO));
-        when(bookRepository.findByExternalId(258027L)).thenReturn(Optional.of(testBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+    void testSyncBooksFromExternalApi_NotModified() {
+        SyncCheckpoint syncState = new SyncCheckpoint("books-full");
+        syncState.setEtag("\"v1\"");
+        when(syncCheckpointRepository.findById("books-full")).thenReturn(Optional.of(syncState));
+        when(externalBookService.fetchAllBooksIfModified("\"v1\"", null))
+                .thenReturn(new ExternalCatalogDTO(List.of(), true, "\"v1\"", null));
+        
+        SyncResultDTO result = bookService.syncBooksFromExternalApi();
+        
+        assertTrue(result.isNotModified());
+        assertEquals(1.0, meterRegistry.counter("libreria.books.sync.not_modified").count());
+        verify(bookSyncWriter, never()).writeChunk(anyList());
+        verify(syncCheckpointRepository, never()).save(any(SyncCheckpoint.class));
+    }
+    
+    @Test
+    void testSyncBooksFromExternalApi_SplitsIntoChunks() {
+        List<ExternalBookDTO> externalBooks = externalBooks(1, 1200);
+        when(externalBookService.fetchAllBooksIfModified(null, null))
+                .thenReturn(new ExternalCatalogDTO(externalBooks, false, null, null));
+        when(bookSyncWriter.writeChunk(anyList())).thenReturn(new SyncResultDTO(400, 100, 0, false));
         
-        bookService.syncBooksFromExternalApi();
+        SyncResultDTO result = bookService.syncBooksFromExternalApi();
         
-        verify(bookRepository, times(1)).save(any(Book.class));
+        // 1200 libros con bloques de 500 -> 500, 500 y 200
+        verify(bookSyncWriter, times(3)).writeChunk(anyList());
+        verify(bookSyncWriter).writeChunk(externalBooks.subList(1000, 1200));
+        verify(bookRepository, never()).findByExternalId(anyLong());
+        assertEquals(1200, result.getCreated());
+        assertEquals(300, result.getUpdated());
+    }
+    
+    @Test
+    void testSyncBooksStreaming_WritesWindowsWithCheckpoint() {
+        when(syncCheckpointRepository.findById("books")).thenReturn(Optional.empty());
+        when(externalBookService.streamAllBooks()).thenReturn(Flux.fromIterable(externalBooks(1, 1200)));
+        when(bookSyncWriter.writeChunk(anyList(), eq("books"), anyLong())).thenReturn(new SyncResultDTO(1, 0, 0, false));
+        
+        bookService.syncBooksStreaming();
+        
+        verify(bookSyncWriter).writeChunk(anyList(), eq("books"), eq(500L));
+        verify(bookSyncWriter).writeChunk(anyList(), eq("books"), eq(1000L));
+        verify(bookSyncWriter).writeChunk(anyList(), eq("books"), eq(1200L));
+        // Al terminar se reinicia el checkpoint
+        ArgumentCaptor<SyncCheckpoint> captor = ArgumentCaptor.forClass(SyncCheckpoint.class);
+        verify(syncCheckpointRepository).save(captor.capture());
+        assertEquals(0L, captor.getValue().getProcessedCount());
+    }
+    
+    @Test
+    void testSyncBooksStreaming_ResumesAfterCheckpoint() {
+        SyncCheckpoint checkpoint = new SyncCheckpoint("books");
+        checkpoint.setLastExternalId(500L);
+        checkpoint.setProcessedCount(500L);
+        when(syncCheckpointRepository.findById("books")).thenReturn(Optional.of(checkpoint));
+        when(externalBookService.streamAllBooks()).thenReturn(Flux.fromIterable(externalBooks(1, 800)));
+        when(bookSyncWriter.writeChunk(anyList(), eq("books"), anyLong())).thenReturn(new SyncResultDTO(300, 0, 0, false));
+        
+        SyncResultDTO result = bookService.syncBooksStreaming();
+        
+        verify(bookSyncWriter, times(1)).writeChunk(externalBooks(501, 800), "books", 800L);
+        assertEquals(300, result.getCreated());
+    }
+    
+    @Test
+    void testSyncBooksStreaming_CheckpointMismatchRestartsNextTime() {
+        SyncCheckpoint checkpoint = new SyncCheckpoint("books");
+        checkpoint.setLastExternalId(999L);
+        checkpoint.setProcessedCount(500L);
+        when(syncCheckpointRepository.findById("books")).thenReturn(Optional.of(checkpoint));
+        when(externalBookService.streamAllBooks()).thenReturn(Flux.fromIterable(externalBooks(1, 800)));
+        
+        assertThrows(RuntimeException.class, () -> bookService.syncBooksStreaming());
+        
+        verify(bookSyncWriter, never()).writeChunk(anyList(), anyString(), anyLong());
+        assertEquals(0L, checkpoint.getProcessedCount());
+        verify(syncCheckpointRepository).save(checkpoint);
     }
     
     @Test
@@ -78,12 +203,32 @@ class BookServiceTest {
         book2.setExternalId(140081L);
         book2.setTitle("The Hitchhiker's Guide to the Galaxy");
         
-        when(bookRepository.findAll()).thenReturn(Arrays.asList(testBook, book2));
+        when(bookRepository.findByExternalIdGreaterThanOrderByExternalIdAsc(0L, Limit.of(3)))
+                .thenReturn(Arrays.asList(testBook, book2));
         
-        List<BookResponseDTO> result = bookService.getAllBooks();
+        CursorPageDTO<BookResponseDTO> result = bookService.getAllBooks(null, 2);
         
         assertNotNull(result);
-        assertEquals(2, result.size());
+        assertEquals(2, result.getItems().size());
+        assertNull(result.getNext());
+    }
+    
+    @Test
+    void testGetAllBooks_HasNextPage() {
+        Book book2 = new Book();
+        book2.setExternalId(258028L);
+        book2.setTitle("Otro libro");
+        book2.setPrice(new BigDecimal("10.00"));
+        book2.setStockQuantity(1);
+        book2.setAvailableQuantity(1);
+        
+        when(bookRepository.findByExternalIdGreaterThanOrderByExternalIdAsc(100L, Limit.of(2)))
+                .thenReturn(Arrays.asList(testBook, book2));
+        
+        CursorPageDTO<BookResponseDTO> result = bookService.getAllBooks(100L, 1);
+        
+        assertEquals(1, result.getItems().size());
+        assertEquals(258027L, result.getNext());
     }
     
     @Test
@@ -108,13 +253,17 @@ class BookServiceTest {
     
     @Test
     void testUpdateStock_Success() {
+        testBook.setStockQuantity(20);
+        testBook.setAvailableQuantity(15);
+        when(bookRepository.updateStockAndAvailableQuantity(258027L, 20)).thenReturn(1);
         when(bookRepository.findByExternalId(258027L)).thenReturn(Optional.of(testBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
         
         BookResponseDTO result = bookService.updateStock(258027L, 20);
         
-        assertNotNull(result);
-        verify(bookRepository, times(1)).save(any(Book.class));
+        assertEquals(15, result.getAvailableQuantity());
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(catalogFacetIndex).setAvailableAfterCommit(258027L, 15);
+        verify(readVersions).bookChangedAfterCommit(258027L);
     }
     
     @Test
@@ -122,32 +271,210 @@ class BookServiceTest {
         testBook.setStockQuantity(10);
         testBook.setAvailableQuantity(5); // 5 reservados
         
+        when(bookRepository.updateStockAndAvailableQuantity(258027L, 3)).thenReturn(0);
         when(bookRepository.findByExternalId(258027L)).thenReturn(Optional.of(testBook));
         
-        assertThrows(RuntimeException.class, () -> {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             bookService.updateStock(258027L, 3); // Menos que los reservados
         });
+        assertEquals("No se puede reducir el stock por debajo de los libros reservados: 5", exception.getMessage());
+        verify(readVersions, never()).bookChangedAfterCommit(anyLong());
+    }
+    
+    @Test
+    void testUpdateStock_NotFound() {
+        when(bookRepository.updateStockAndAvailableQuantity(258027L, 3)).thenReturn(0);
+        when(bookRepository.findByExternalId(258027L)).thenReturn(Optional.empty());
+        
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            bookService.updateStock(258027L, 3);
+        });
+        assertEquals("Libro no encontrado con ID externo: 258027", exception.getMessage());
     }
     
     @Test
     void testDecreaseAvailableQuantity_Success() {
-        when(bookRepository.findByExternalId(258027L)).thenReturn(Optional.of(testBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+        when(bookRepository.decrementAvailableQuantity(258027L)).thenReturn(1);
         
         bookService.decreaseAvailableQuantity(258027L);
         
-        verify(bookRepository, times(1)).save(any(Book.class));
+        verify(bookRepository, times(1)).decrementAvailableQuantity(258027L);
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(catalogFacetIndex).changeAvailableAfterCommit(258027L, -1);
+        verify(readVersions).bookChangedAfterCommit(258027L);
     }
     
     @Test
     void testDecreaseAvailableQuantity_NoStock() {
-        testBook.setAvailableQuantity(0);
+        when(bookRepository.decrementAvailableQuantity(258027L)).thenReturn(0);
+        when(bookRepository.existsByExternalId(258027L)).thenReturn(true);
         
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            bookService.decreaseAvailableQuantity(258027L);
+        });
+        assertEquals("No hay libros disponibles para reservar", exception.getMessage());
+    }
+    
+    @Test
+    void testDecreaseAvailableQuantity_NotFound() {
+        when(bookRepository.decrementAvailableQuantity(258027L)).thenReturn(0);
+        when(bookRepository.existsByExternalId(258027L)).thenReturn(false);
+        
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            bookService.decreaseAvailableQuantity(258027L);
+        });
+        assertEquals("Libro no encontrado con ID externo: 258027", exception.getMessage());
+    }
+    
+    @Test
+    void testTryDecreaseAvailableQuantity_LedgerEnabled_DoesNotTouchBookRow() {
+        when(inventoryLedger.isEnabled()).thenReturn(true);
+        when(inventoryLedger.tryDecrease(258027L, 1)).thenReturn(true);
+        
+        assertTrue(bookService.tryDecreaseAvailableQuantity(258027L));
+        
+        verify(bookRepository, never()).decrementAvailableQuantity(anyLong());
+    }
+    
+    @Test
+    void testUpdateStock_LedgerEnabled_WritesOnlyStock() {
+        when(inventoryLedger.isEnabled()).thenReturn(true);
         when(bookRepository.findByExternalId(258027L)).thenReturn(Optional.of(testBook));
+        when(inventoryLedger.updateStock(258027L, 20)).thenReturn(4);
+        
+        BookResponseDTO result = bookService.updateStock(258027L, 20);
+        
+        assertEquals(20, result.getStockQuantity());
+        assertEquals(16, result.getAvailableQuantity());
+        verify(bookRepository).updateStockQuantity(258027L, 20);
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+    
+    @Test
+    void testIncreaseAvailableQuantity_AlreadyFull() {
+        when(bookRepository.incrementAvailableQuantity(258027L)).thenReturn(0);
+        when(bookRepository.existsByExternalId(258027L)).thenReturn(true);
         
         assertThrows(RuntimeException.class, () -> {
-            bookService.decreaseAvailableQuantity(258027L);
+            bookService.increaseAvailableQuantity(258027L);
         });
     }
+    
+    private List<ExternalBookDTO> externalBooks(long fromId, long toId) {
+        List<ExternalBookDTO> books = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            ExternalBookDTO dto = new ExternalBookDTO();
+            dto.setId(id);
+            books.add(dto);
+        }
+        return books;
+    }
+    
+    @Test
+    void testGetBookByExternalId_LedgerEnabled_AvailabilityFromTheLedger() {
+        testBook.setAvailableQuantity(5); // fila todavía sin el último flush
+        when(inventoryLedger.isEnabled()).thenReturn(true);
+        when(inventoryLedger.getAvailableQuantity(258027L, 5)).thenReturn(2);
+        when(bookRepository.findByExternalId(258027L)).thenReturn(Optional.of(testBook));
+        
+        assertEquals(2, bookService.getBookByExternalId(258027L).getAvailableQuantity());
+    }
+    
+    @Test
+    void testGetAvailableQuantity_LedgerDisabled_ReadsTheBookRow() {
+        testBook.setAvailableQuantity(5);
+        
+        assertEquals(5, bookService.getAvailableQuantity(testBook));
+        verify(inventoryLedger, never()).getAvailableQuantity(anyLong(), any());
+    }
+    
+    @Test
+    void testTryDecreaseAvailableQuantities_OneConditionalUpdatePerBook() {
+        Cache booksCache = mock(Cache.class);
+        when(cacheManager.getCache("books")).thenReturn(booksCache);
+        when(bookRepository.decrementAvailableQuantityBy(1L, 3)).thenReturn(1);
+        when(bookRepository.decrementAvailableQuantityBy(2L, 2)).thenReturn(0);
+        when(bookRepository.findAvailableQuantityByExternalId(2L)).thenReturn(Optional.of(0));
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 3);
+        quantities.put(2L, 2);
+        
+        Map<Long, Integer> decreased = bookService.tryDecreaseAvailableQuantities(quantities);
+        
+        assertEquals(Map.of(1L, 3), decreased);
+        verify(bookRepository, never()).findAvailableQuantityByExternalId(1L);
+        verify(booksCache).evict(1L);
+        verify(booksCache, never()).evict(2L);
+        verify(catalogFacetIndex).changeAvailableAfterCommit(1L, -3);
+        verify(catalogFacetIndex, never()).changeAvailableAfterCommit(eq(2L), anyInt());
+        verify(readVersions).booksChangedAfterCommit(Set.of(1L));
+    }
+    
+    @Test
+    void testTryDecreaseAvailableQuantities_UpdateMisses_RetriesWithCurrentAvailability() {
+        when(cacheManager.getCache("books")).thenReturn(mock(Cache.class));
+        when(bookRepository.decrementAvailableQuantityBy(1L, 5)).thenReturn(0);
+        // Primero quedaban 3; otra reserva se llevó uno antes del segundo UPDATE
+        when(bookRepository.findAvailableQuantityByExternalId(1L)).thenReturn(Optional.of(3), Optional.of(2));
+        when(bookRepository.decrementAvailableQuantityBy(1L, 3)).thenReturn(0);
+        when(bookRepository.decrementAvailableQuantityBy(1L, 2)).thenReturn(1);
+        
+        Map<Long, Integer> decreased = bookService.tryDecreaseAvailableQuantities(Map.of(1L, 5));
+        
+        assertEquals(Map.of(1L, 2), decreased);
+        verify(catalogFacetIndex).changeAvailableAfterCommit(1L, -2);
+    }
+    
+    @Test
+    void testTryDecreaseAvailableQuantities_LedgerEnabled_RetriesWithLedgerAvailability() {
+        when(cacheManager.getCache("books")).thenReturn(mock(Cache.class));
+        when(inventoryLedger.isEnabled()).thenReturn(true);
+        when(inventoryLedger.tryDecrease(1L, 4)).thenReturn(false);
+        when(inventoryLedger.getAvailableQuantity(1L)).thenReturn(1);
+        when(inventoryLedger.tryDecrease(1L, 1)).thenReturn(true);
+        
+        assertEquals(Map.of(1L, 1), bookService.tryDecreaseAvailableQuantities(Map.of(1L, 4)));
+        verify(bookRepository, never()).decrementAvailableQuantityBy(anyLong(), anyInt());
+    }
+    
+    @Test
+    void testTryIncreaseAvailableQuantities_OneConditionalUpdatePerBook() {
+        Cache booksCache = mock(Cache.class);
+        when(cacheManager.getCache("books")).thenReturn(booksCache);
+        when(bookRepository.incrementAvailableQuantityBy(1L, 3)).thenReturn(1);
+        when(bookRepository.incrementAvailableQuantityBy(2L, 2)).thenReturn(0);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 3);
+        quantities.put(2L, 2);
+        
+        Set<Long> increased = bookService.tryIncreaseAvailableQuantities(quantities);
+        
+        assertEquals(Set.of(1L), increased);
+        verify(booksCache).evict(1L);
+        verify(booksCache, never()).evict(2L);
+    }
+    
+    @Test
+    void testFilterBooks_ReadsOnlyThePageFromTheDatabase() {
+        CatalogFacetIndex.Filter filter = new CatalogFacetIndex.Filter(1950, 1959, null, null, null, true);
+        Map<String, Map<String, Long>> facets = Map.of(CatalogFacetIndex.AVAILABLE, Map.of("true", 3L));
+        when(catalogFacetIndex.query(filter, 100L, 3)).thenReturn(
+                new CatalogFacetIndex.Result(3, List.of(258027L, 258028L, 258029L), facets));
+        Book second = new Book();
+        second.setExternalId(258028L);
+        second.setTitle("The Two Towers");
+        Book third = new Book();
+        third.setExternalId(258029L);
+        third.setTitle("The Return of the King");
+        when(bookRepository.findByExternalIdIn(List.of(258027L, 258028L, 258029L)))
+                .thenReturn(List.of(third, second, testBook));
+        
+        BookFacetsDTO result = bookService.filterBooks(filter, 100L, 2);
+        
+        assertEquals(3, result.getTotal());
+        assertEquals(List.of(258027L, 258028L),
+                result.getItems().stream().map(BookResponseDTO::getExternalId).toList());
+        assertEquals(258028L, result.getNext());
+        assertEquals(facets, result.getFacets());
+    }
 }
-
@@ -0,0 +1,180 @@
+package com.example.libreria.service;
+
+import com.example.libreria.config.CacheConfig;
+import com.example.libreria.dto.ExternalBookDTO;
+import com.example.libreria.dto.SyncResultDTO;
+import com.example.libreria.model.Book;
+import com.example.libreria.model.SyncCheckpoint;
+import com.example.libreria.repository.BookRepository;
+import com.example.libreria.repository.SyncCheckpointRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookSyncWriterTest {
+    
+    @Mock
+    private BookRepository bookRepository;
+    
+    @Mock
+    private SyncCheckpointRepository syncCheckpointRepository;
+    
+    @Mock
+    private EntityManager entityManager;
+    
+    @Mock
+    private CacheManager cacheManager;
+    
+    @Mock
+    private Cache booksCache;
+    
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+    
+    @Mock
+    private CatalogFacetIndex catalogFacetIndex;
+    
+    @Mock
+    private ReadVersions readVersions;
+    
+    @InjectMocks
+    private BookSyncWriter bookSyncWriter;
+    
+    private Book existingBook;
+    private ExternalBookDTO existingDTO;
+    private ExternalBookDTO newDTO;
+    
+    @BeforeEach
+    void setUp() {
+        lenient().when(cacheManager.getCache(CacheConfig.BOOKS_CACHE)).thenReturn(booksCache);
+        
+        existingBook = new Book();
+        existingBook.setExternalId(258027L);
+        existingBook.setTitle("The Lord of the Rings");
+        existingBook.setPrice(new BigDecimal("15.99"));
+        existingBook.setStockQuantity(10);
+        existingBook.setAvailableQuantity(5);
+        
+        existingDTO = new ExternalBookDTO();
+        existingDTO.setId(258027L);
+        existingDTO.setTitle("The Lord of the Rings (Edición revisada)");
+        existingDTO.setPrice(new BigDecimal("17.99"));
+        
+        newDTO = new ExternalBookDTO();
+        newDTO.setId(140081L);
+        newDTO.setTitle("The Hitchhiker's Guide to the Galaxy");
+        newDTO.setPrice(new BigDecimal("20.99"));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWriteChunk_CreatesAndUpdatesWithSingleLookup() {
+        when(bookRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of(existingBook));
+        
+        SyncResultDTO result = bookSyncWriter.writeChunk(Arrays.asList(existingDTO, newDTO));
+        
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(BookSyncWriter.fingerprint(existingDTO), existingBook.getContentHash());
+        verify(bookRepository, times(1)).findByExternalIdIn(anyCollection());
+        verify(bookRepository, never()).findByExternalId(any());
+        
+        ArgumentCaptor<List<Book>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bookRepository).saveAll(captor.capture());
+        List<Book> saved = captor.getValue();
+        assertEquals(1, saved.size());
+        assertEquals(140081L, saved.get(0).getExternalId());
+        assertTrue(saved.get(0).isNew());
+        assertEquals(10, saved.get(0).getAvailableQuantity());
+        
+        // El existente se actualiza en memoria sin tocar el stock
+        assertEquals("The Lord of the Rings (Edición revisada)", existingBook.getTitle());
+        assertEquals(5, existingBook.getAvailableQuantity());
+        // Solo se invalida la entrada del libro modificado
+        verify(booksCache).evict(258027L);
+        verify(booksCache, never()).evict(140081L);
+        // Nuevos y modificados se indexan para la búsqueda
+        verify(bookSearchIndex).indexAfterCommit(saved);
+        verify(bookSearchIndex).indexAfterCommit(List.of(existingBook));
+        verify(catalogFacetIndex).indexAfterCommit(saved);
+        verify(catalogFacetIndex).indexAfterCommit(List.of(existingBook));
+        // Cambian las versiones de ambos libros y, por el título, las de las reservas
+        verify(readVersions).booksChangedAfterCommit(List.of(saved.get(0).getExternalId(), 258027L));
+        verify(readVersions).allReservationsChangedAfterCommit();
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWriteChunk_DuplicateIdsKeepLastVersion() {
+        ExternalBookDTO duplicate = new ExternalBookDTO();
+        duplicate.setId(140081L);
+        duplicate.setTitle("The Hitchhiker's Guide to the Galaxy (2nd)");
+        duplicate.setPrice(new BigDecimal("21.99"));
+        when(bookRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of());
+        
+        SyncResultDTO result = bookSyncWriter.writeChunk(Arrays.asList(newDTO, duplicate));
+        
+        assertEquals(1, result.getCreated());
+        ArgumentCaptor<List<Book>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bookRepository).saveAll(captor.capture());
+        assertEquals("The Hitchhiker's Guide to the Galaxy (2nd)", captor.getValue().get(0).getTitle());
+    }
+    
+    @Test
+    void testWriteChunk_SkipsUnchangedBooks() {
+        existingBook.setTitle(existingDTO.getTitle());
+        existingBook.setPrice(new BigDecimal("17.99"));
+        existingBook.setContentHash(BookSyncWriter.fingerprint(existingDTO));
+        when(bookRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of(existingBook));
+        
+        SyncResultDTO result = bookSyncWriter.writeChunk(List.of(existingDTO));
+        
+        assertEquals(0, result.getCreated());
+        assertEquals(0, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        verify(booksCache, never()).evict(any());
+        verify(bookSearchIndex, times(2)).indexAfterCommit(List.of());
+    }
+    
+    @Test
+    void testFingerprint_IgnoresPriceScaleButDetectsChanges() {
+        ExternalBookDTO sameWithOtherScale = new ExternalBookDTO(258027L, null, null,
+                existingDTO.getTitle(), null, null, new BigDecimal("17.990"));
+        ExternalBookDTO otherAuthors = new ExternalBookDTO(258027L, null, null,
+                existingDTO.getTitle(), List.of("J. R. R. Tolkien"), null, new BigDecimal("17.99"));
+        
+        assertEquals(BookSyncWriter.fingerprint(existingDTO), BookSyncWriter.fingerprint(sameWithOtherScale));
+        assertNotEquals(BookSyncWriter.fingerprint(existingDTO), BookSyncWriter.fingerprint(otherAuthors));
+    }
+    
+    @Test
+    void testWriteChunk_SavesCheckpointWithLastId() {
+        when(bookRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of());
+        
+        bookSyncWriter.writeChunk(Arrays.asList(existingDTO, newDTO), "books", 1000L);
+        
+        ArgumentCaptor<SyncCheckpoint> captor = ArgumentCaptor.forClass(SyncCheckpoint.class);
+        verify(syncCheckpointRepository).save(captor.capture());
+        assertEquals("books", captor.getValue().getName());
+        assertEquals(140081L, captor.getValue().getLastExternalId());
+        assertEquals(1000L, captor.getValue().getProcessedCount());
+    }
+}
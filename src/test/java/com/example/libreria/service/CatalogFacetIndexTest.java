@@ -0,0 +1,165 @@
+package com.example.libreria.service;
+
+import com.example.libreria.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogFacetIndexTest {
+
+    private static final CatalogFacetIndex.Filter NO_FILTER =
+            new CatalogFacetIndex.Filter(null, null, null, null, null, null);
+
+    private CatalogFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Sin base: los libros se indexan directamente
+        index = new CatalogFacetIndex(null);
+        index.indexAfterCommit(List.of(
+                book(1L, 1954, true, "15.99", 120, 5),
+                book(2L, 1979, false, "20.99", 85, 0),
+                book(3L, 1967, true, "22.99", 250, 2),
+                book(4L, 1813, true, "12.99", 75, 1),
+                book(5L, 1951, false, "55.00", 3, 4)));
+    }
+
+    @Test
+    void testQuery_NoFilterCountsEveryFacet() {
+        CatalogFacetIndex.Result result = index.query(NO_FILTER, null, 10);
+
+        assertEquals(5, result.total());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), result.externalIds());
+        assertEquals(Map.of("1810-1819", 1L, "1950-1959", 2L, "1960-1969", 1L, "1970-1979", 1L),
+                result.facets().get(CatalogFacetIndex.YEAR));
+        assertEquals(Map.of("false", 2L, "true", 3L), result.facets().get(CatalogFacetIndex.FULLTEXT));
+        assertEquals(Map.of("0-10", 0L, "10-20", 2L, "20-30", 2L, "30-50", 0L, "50+", 1L),
+                result.facets().get(CatalogFacetIndex.PRICE));
+        assertEquals(Map.of("1-10", 1L, "11-50", 0L, "51-100", 2L, "101-250", 2L, "251+", 0L),
+                result.facets().get(CatalogFacetIndex.EDITIONS));
+        assertEquals(Map.of("false", 1L, "true", 4L), result.facets().get(CatalogFacetIndex.AVAILABLE));
+    }
+
+    @Test
+    void testQuery_CombinedFiltersAndFacetsIgnoreTheirOwnFilter() {
+        CatalogFacetIndex.Filter filter = new CatalogFacetIndex.Filter(
+                1950, 1970, true, Set.of("10-20", "20-30"), null, null);
+
+        CatalogFacetIndex.Result result = index.query(filter, null, 10);
+
+        assertEquals(List.of(1L, 3L), result.externalIds());
+        // Sin el filtro de precio, el libro 5 (1951, sin texto completo) igual queda afuera
+        assertEquals(Map.of("0-10", 0L, "10-20", 1L, "20-30", 1L, "30-50", 0L, "50+", 0L),
+                result.facets().get(CatalogFacetIndex.PRICE));
+        // Sin el filtro de texto completo, el libro 5 cae en "50+": no suma a ningún valor
+        assertEquals(Map.of("false", 0L, "true", 2L), result.facets().get(CatalogFacetIndex.FULLTEXT));
+        // Sin el filtro de años aparece el libro 4
+        assertEquals(3L, result.facets().get(CatalogFacetIndex.YEAR).values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void testQuery_YearRangeInsideADecade() {
+        assertEquals(List.of(5L), index.query(new CatalogFacetIndex.Filter(1950, 1952, null, null, null, null), null, 10)
+                .externalIds());
+        assertEquals(List.of(1L, 4L, 5L), index.query(new CatalogFacetIndex.Filter(null, 1960, null, null, null, null), null, 10)
+                .externalIds());
+        assertEquals(List.of(2L), index.query(new CatalogFacetIndex.Filter(1970, null, null, null, null, null), null, 10)
+                .externalIds());
+    }
+
+    @Test
+    void testQuery_PagesByExternalId() {
+        CatalogFacetIndex.Result first = index.query(NO_FILTER, null, 2);
+        CatalogFacetIndex.Result second = index.query(NO_FILTER, 2L, 2);
+
+        assertEquals(List.of(1L, 2L), first.externalIds());
+        assertEquals(List.of(3L, 4L), second.externalIds());
+        assertEquals(5, second.total());
+    }
+
+    @Test
+    void testQuery_PagesWhenBooksArriveOutOfOrder() {
+        CatalogFacetIndex unordered = new CatalogFacetIndex(null);
+        unordered.indexAfterCommit(List.of(
+                book(30L, 1990, true, "10.00", 1, 1),
+                book(10L, 1990, true, "10.00", 1, 1),
+                book(20L, 1990, true, "10.00", 1, 1)));
+
+        assertEquals(List.of(10L, 20L), unordered.query(NO_FILTER, null, 2).externalIds());
+        assertEquals(List.of(30L), unordered.query(NO_FILTER, 20L, 2).externalIds());
+    }
+
+    @Test
+    void testAvailability_FollowsStockChanges() {
+        CatalogFacetIndex.Filter availableNow = new CatalogFacetIndex.Filter(null, null, null, null, null, true);
+
+        index.changeAvailableAfterCommit(4L, -1);
+        index.changeAvailableAfterCommit(2L, 1);
+
+        assertEquals(List.of(1L, 2L, 3L, 5L), index.query(availableNow, null, 10).externalIds());
+        index.setAvailableAfterCommit(1L, 0);
+        assertEquals(List.of(2L, 3L, 5L), index.query(availableNow, null, 10).externalIds());
+        assertEquals(List.of(1L, 4L), index.query(new CatalogFacetIndex.Filter(null, null, null, null, null, false),
+                null, 10).externalIds());
+    }
+
+    @Test
+    void testIndex_UpdatedBookMovesBetweenValuesAndKeepsAvailability() {
+        index.changeAvailableAfterCommit(2L, 3);
+
+        // La sincronización no toca la disponibilidad: la del índice se conserva
+        index.indexAfterCommit(List.of(book(2L, 2001, true, "35.00", 85, 0)));
+
+        CatalogFacetIndex.Result result = index.query(NO_FILTER, null, 10);
+        assertEquals(5, result.total());
+        assertEquals(0L, result.facets().get(CatalogFacetIndex.YEAR).getOrDefault("1970-1979", 0L));
+        assertEquals(1L, result.facets().get(CatalogFacetIndex.YEAR).get("2000-2009"));
+        assertEquals(1L, result.facets().get(CatalogFacetIndex.PRICE).get("30-50"));
+        assertEquals(Map.of("false", 0L, "true", 5L), result.facets().get(CatalogFacetIndex.AVAILABLE));
+    }
+
+    @Test
+    void testIndexAfterCommit_WaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.indexAfterCommit(List.of(book(6L, 2020, true, "9.99", 1, 10)));
+            assertEquals(5, index.size());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(6, index.size());
+            assertEquals(1L, index.query(NO_FILTER, null, 10).facets().get(CatalogFacetIndex.PRICE).get("0-10"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testQuery_InvalidFilters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> index.query(new CatalogFacetIndex.Filter(2000, 1990, null, null, null, null), null, 10));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> index.query(new CatalogFacetIndex.Filter(null, null, null, Set.of("barato"), null, null), null, 10));
+        assertEquals("Rango de precio no soportado: barato", exception.getMessage());
+    }
+
+    private static Book book(Long externalId, int year, boolean hasFulltext, String price, int editions, int available) {
+        Book book = new Book();
+        book.setExternalId(externalId);
+        book.setTitle("Libro " + externalId);
+        book.setFirstPublishYear(year);
+        book.setHasFulltext(hasFulltext);
+        book.setPrice(new BigDecimal(price));
+        book.setEditionCount(editions);
+        book.setStockQuantity(Math.max(available, 5));
+        book.setAvailableQuantity(available);
+        return book;
+    }
+}
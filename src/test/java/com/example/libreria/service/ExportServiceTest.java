@@ -0,0 +1,135 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.ReservationResponseDTO;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.repository.BookRepository;
+import com.example.libreria.repository.ReservationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ExportService exportService;
+
+    @Test
+    void testExportReservations_CsvEscapesAndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        when(reservationRepository.streamResponses(Reservation.ReservationStatus.ACTIVE, from, null))
+                .thenReturn(Stream.of(reservation(1L, "Pérez, \"Juan\""), reservation(2L, "Ana"))
+                        .onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportReservations(ExportService.Format.CSV,
+                Reservation.ReservationStatus.ACTIVE, from, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, rows);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,userId,userName,bookExternalId"));
+        assertEquals("1,1,\"Pérez, \"\"Juan\"\"\",258027,The Lord of the Rings,7,2025-11-14,2025-11-21,,"
+                + "15.99,111.93,0.00,ACTIVE,2025-11-14T10:00", lines[1]);
+        assertTrue(closed.get());
+        assertEquals(2, meterRegistry.counter("libreria.export.rows", "type", "reservations", "format", "csv").count());
+    }
+
+    @Test
+    void testExportReservations_NdjsonOneObjectPerLine() throws Exception {
+        when(reservationRepository.streamResponses(null, null, null))
+                .thenReturn(Stream.of(reservation(1L, "Ana"), reservation(2L, "Luis")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportReservations(ExportService.Format.NDJSON, null, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        assertEquals(2L, objectMapper.readValue(lines[1], ReservationResponseDTO.class).getId());
+        assertTrue(lines[0].contains("\"startDate\":\"2025-11-14\""));
+    }
+
+    @Test
+    void testExportBooks_GroupsAuthorRowsByBook() throws Exception {
+        BigDecimal price = new BigDecimal("15.99");
+        when(bookRepository.streamBookAuthorRows()).thenReturn(Stream.of(
+                new Object[]{1L, "Sin autores", 1967, 1, true, price, 3, 3, null},
+                new Object[]{2L, "The Lord of the Rings", 1954, 120, true, price, 10, 8, "J. R. R. Tolkien"},
+                new Object[]{2L, "The Lord of the Rings", 1954, 120, true, price, 10, 8, "Christopher Tolkien"}));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportBooks(ExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, rows);
+        assertEquals("1,Sin autores,,1967,1,true,15.99,3,3", lines[1]);
+        assertEquals("2,The Lord of the Rings,J. R. R. Tolkien; Christopher Tolkien,1954,120,true,15.99,10,8", lines[2]);
+    }
+
+    @Test
+    void testExportBooks_LedgerEnabled_AvailabilityFromTheLedger() throws Exception {
+        BigDecimal price = new BigDecimal("15.99");
+        when(bookRepository.streamBookAuthorRows()).thenReturn(Stream.<Object[]>of(
+                new Object[]{2L, "The Lord of the Rings", 1954, 120, true, price, 10, 8, "J. R. R. Tolkien"}));
+        when(inventoryLedger.isEnabled()).thenReturn(true);
+        when(inventoryLedger.getAvailableQuantity(2L, 8)).thenReturn(6);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportBooks(ExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("2,The Lord of the Rings,J. R. R. Tolkien,1954,120,true,15.99,10,6", lines[1]);
+    }
+
+    @Test
+    void testFormat_UnknownValue() {
+        assertEquals(ExportService.Format.CSV, ExportService.Format.of("csv"));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> ExportService.Format.of("xml"));
+        assertEquals("Formato de exportación no soportado: xml", exception.getMessage());
+    }
+
+    private ReservationResponseDTO reservation(Long id, String userName) {
+        return new ReservationResponseDTO(id, 1L, userName, 258027L, "The Lord of the Rings", 7,
+                LocalDate.of(2025, 11, 14), LocalDate.of(2025, 11, 21), null, new BigDecimal("15.99"),
+                new BigDecimal("111.93"), new BigDecimal("0.00"), Reservation.ReservationStatus.ACTIVE,
+                LocalDateTime.of(2025, 11, 14, 10, 0));
+    }
+}
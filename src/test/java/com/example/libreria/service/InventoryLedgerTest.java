@@ -0,0 +1,163 @@
+package com.example.libreria.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin transacción de test: el ledger lee con otras conexiones y la compensación depende del rollback real
+@DataJpaTest(properties = {
+        "inventory.ledger.enabled=true",
+        "spring.jpa.show-sql=false"
+})
+@Import({InventoryLedger.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryLedgerTest {
+
+    private static final long BOOK_ID = 910_001L;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO books (external_id, title, price, stock_quantity, available_quantity) "
+                + "VALUES (?, 'Libro del ledger', 10.00, 5, 5)", BOOK_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM reservations WHERE book_external_id = ?", BOOK_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE email = 'ledger@example.com'");
+        jdbcTemplate.update("DELETE FROM books WHERE external_id = ?", BOOK_ID);
+        inventoryLedger.rebuild();
+    }
+
+    @Test
+    void testRebuild_StockMinusActiveReservations() {
+        jdbcTemplate.update("INSERT INTO users (name, email, created_at) VALUES ('Lector', 'ledger@example.com', NOW())");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'ledger@example.com'", Long.class);
+        insertReservation(userId, "ACTIVE");
+        insertReservation(userId, "OVERDUE");
+        insertReservation(userId, "RETURNED");
+
+        inventoryLedger.rebuild();
+
+        assertEquals(3, inventoryLedger.getAvailableQuantity(BOOK_ID));
+        assertEquals(3, availableInDatabase());
+    }
+
+    @Test
+    void testTryDecrease_NoOversellUnderConcurrency() throws Exception {
+        assertEquals(5, inventoryLedger.getAvailableQuantity(BOOK_ID));
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10; i++) {
+                    if (inventoryLedger.tryDecrease(BOOK_ID, 1)) {
+                        taken.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(5, taken.get());
+        assertEquals(0, inventoryLedger.getAvailableQuantity(BOOK_ID));
+        // La fila recién se actualiza en el flush, con un único UPDATE por libro
+        assertEquals(5, availableInDatabase());
+        assertEquals(1, inventoryLedger.flush());
+        assertEquals(0, availableInDatabase());
+    }
+
+    @Test
+    void testTryIncrease_NeverExceedsStock() {
+        assertTrue(inventoryLedger.tryDecrease(BOOK_ID, 2));
+        assertFalse(inventoryLedger.tryIncrease(BOOK_ID, 3));
+        assertTrue(inventoryLedger.tryIncrease(BOOK_ID, 2));
+        assertEquals(5, inventoryLedger.getAvailableQuantity(BOOK_ID));
+    }
+
+    @Test
+    void testRollback_UndoesChangeInMemory() {
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(inventoryLedger.tryDecrease(BOOK_ID, 2));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(5, inventoryLedger.getAvailableQuantity(BOOK_ID));
+        assertEquals(0, inventoryLedger.flush());
+    }
+
+    @Test
+    void testUpdateStock_KeepsReservedCopies() {
+        assertTrue(inventoryLedger.tryDecrease(BOOK_ID, 3));
+
+        assertEquals(-1, inventoryLedger.updateStock(BOOK_ID, 2));
+        assertEquals(3, inventoryLedger.updateStock(BOOK_ID, 8));
+        assertEquals(5, inventoryLedger.getAvailableQuantity(BOOK_ID));
+        inventoryLedger.flush();
+        assertEquals(5, availableInDatabase());
+    }
+
+    @Test
+    void testGetAvailableQuantityForRead_PrefersCountersOverTheStoredValue() {
+        assertTrue(inventoryLedger.tryDecrease(BOOK_ID, 2));
+
+        // La fila todavía dice 5 hasta el flush
+        assertEquals(3, inventoryLedger.getAvailableQuantity(BOOK_ID, availableInDatabase()));
+        // Libro no cargado en memoria: la fila está al día y no se consulta la base
+        assertEquals(7, inventoryLedger.getAvailableQuantity(404L, 7));
+    }
+
+    @Test
+    void testUnknownBook() {
+        assertFalse(inventoryLedger.tryDecrease(404L, 1));
+        assertNull(inventoryLedger.getAvailableQuantity(404L));
+    }
+
+    private void insertReservation(Long userId, String status) {
+        jdbcTemplate.update("INSERT INTO reservations (user_id, book_external_id, rental_days, start_date, "
+                        + "expected_return_date, daily_rate, total_fee, late_fee, status, created_at) "
+                        + "VALUES (?, ?, 7, ?, ?, 10.00, 70.00, 0.00, ?, NOW())",
+                userId, BOOK_ID, LocalDate.now(), LocalDate.now().plusDays(7), status);
+    }
+
+    private Integer availableInDatabase() {
+        return jdbcTemplate.queryForObject(
+                "SELECT available_quantity FROM books WHERE external_id = ?", Integer.class, BOOK_ID);
+    }
+}
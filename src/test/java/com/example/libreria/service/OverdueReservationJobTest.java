@@ -0,0 +1,40 @@
+package com.example.libreria.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueReservationJobTest {
+    
+    @Mock
+    private ReservationService reservationService;
+    
+    @InjectMocks
+    private OverdueReservationJob overdueReservationJob;
+    
+    @Test
+    void testMarkOverdueReservations_RunsBatchesUntilEmpty() {
+        when(reservationService.markOverdueBatch(any(LocalDate.class), eq(500))).thenReturn(500, 500, 120, 0);
+        
+        assertEquals(1120, overdueReservationJob.markOverdueReservations());
+        verify(reservationService, times(4)).markOverdueBatch(LocalDate.now(), 500);
+    }
+    
+    @Test
+    void testMarkOverdueReservations_NothingOverdue() {
+        when(reservationService.markOverdueBatch(any(LocalDate.class), eq(500))).thenReturn(0);
+        
+        assertEquals(0, overdueReservationJob.markOverdueReservations());
+        verify(reservationService, times(1)).markOverdueBatch(any(LocalDate.class), eq(500));
+    }
+}
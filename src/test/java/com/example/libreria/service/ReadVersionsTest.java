@@ -0,0 +1,87 @@
+package com.example.libreria.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadVersionsTest {
+
+    private final ReadVersions readVersions = new ReadVersions();
+
+    @Test
+    void testBookChange_MovesThatBookAndTheCatalog() {
+        ReadVersions.Stamp catalog = readVersions.catalog();
+        ReadVersions.Stamp changed = readVersions.book(1L);
+        ReadVersions.Stamp other = readVersions.book(2L);
+
+        readVersions.bookChangedAfterCommit(1L);
+
+        assertNotEquals(catalog.etag(), readVersions.catalog().etag());
+        assertNotEquals(changed.etag(), readVersions.book(1L).etag());
+        assertEquals(other.etag(), readVersions.book(2L).etag());
+        assertTrue(readVersions.book(1L).lastModified() >= changed.lastModified());
+    }
+
+    @Test
+    void testEtags_AreStrongAndNeverRepeat() {
+        ReadVersions.Stamp before = readVersions.book(1L);
+        readVersions.booksChangedAfterCommit(List.of(1L, 2L));
+        ReadVersions.Stamp first = readVersions.book(1L);
+        readVersions.booksChangedAfterCommit(List.of(2L));
+        readVersions.booksChangedAfterCommit(List.of(1L));
+
+        assertTrue(first.etag().startsWith("\"") && first.etag().endsWith("\""));
+        assertFalse(first.etag().startsWith("W/"));
+        assertEquals(3, Set.of(before.etag(), first.etag(), readVersions.book(1L).etag()).size());
+    }
+
+    @Test
+    void testReservations_PerUserAndGlobalChanges() {
+        ReadVersions.Stamp user1 = readVersions.reservations(1L);
+        ReadVersions.Stamp user2 = readVersions.reservations(2L);
+
+        readVersions.reservationsChangedAfterCommit(List.of(1L));
+
+        assertNotEquals(user1.etag(), readVersions.reservations(1L).etag());
+        assertEquals(user2.etag(), readVersions.reservations(2L).etag());
+
+        readVersions.allReservationsChangedAfterCommit();
+
+        assertNotEquals(user2.etag(), readVersions.reservations(2L).etag());
+    }
+
+    @Test
+    void testChanges_WaitForCommit() {
+        ReadVersions.Stamp catalog = readVersions.catalog();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            readVersions.bookChangedAfterCommit(1L);
+            assertEquals(catalog.etag(), readVersions.catalog().etag());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertNotEquals(catalog.etag(), readVersions.catalog().etag());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testChanges_RolledBackTransactionKeepsTheVersion() {
+        ReadVersions.Stamp reservations = readVersions.reservations(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            readVersions.reservationsChangedAfterCommit(List.of(1L));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(reservations.etag(), readVersions.reservations(1L).etag());
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.libreria.service;
+
+import com.example.libreria.dto.ReportDTO;
+import com.example.libreria.dto.RevenueTotalsDTO;
+import com.example.libreria.model.Book;
+import com.example.libreria.model.DailyRevenue;
+import com.example.libreria.model.Reservation;
+import com.example.libreria.model.User;
+import com.example.libreria.repository.DailyRevenueRepository;
+import com.example.libreria.repository.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 11, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 11, 30);
+
+    @Mock
+    private DailyRevenueRepository dailyRevenueRepository;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @InjectMocks
+    private ReportService reportService;
+
+    @Test
+    void testGetRevenue_ByBookSortedByAmount() {
+        when(dailyRevenueRepository.findTotalsByBook(FROM, TO)).thenReturn(List.of(
+                totals("1", "Barato", 2, "20.00", 0, "0.00"),
+                totals("2", "Solo devoluciones", 0, "0.00", 1, "3.00"),
+                totals("3", "Caro", 1, "90.00", 0, "0.00")));
+
+        ReportDTO report = reportService.getRevenue(FROM, TO, ReportService.GroupBy.BOOK);
+
+        assertEquals("book", report.getGroupBy());
+        assertEquals(3, report.getCount());
+        assertEquals(new BigDecimal("110.00"), report.getTotal());
+        assertEquals(2, report.getRows().size());
+        assertEquals("Caro", report.getRows().get(0).getLabel());
+        assertEquals(2, report.getRows().get(1).getCount());
+    }
+
+    @Test
+    void testGetLateFees_OnlyDaysWithLateReturns() {
+        when(dailyRevenueRepository.findTotalsByDay(FROM, TO)).thenReturn(List.of(
+                totals("2025-11-03", null, 4, "40.00", 0, "0.00"),
+                totals("2025-11-10", null, 0, "0.00", 2, "7.20")));
+
+        ReportDTO report = reportService.getLateFees(FROM, TO, ReportService.GroupBy.DAY);
+
+        assertEquals(1, report.getRows().size());
+        assertEquals("2025-11-10", report.getRows().get(0).getKey());
+        assertEquals(2, report.getCount());
+        assertEquals(new BigDecimal("7.20"), report.getTotal());
+    }
+
+    @Test
+    void testGetRevenue_InvalidRange() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> reportService.getRevenue(TO, FROM, ReportService.GroupBy.DAY));
+        assertEquals("La fecha desde no puede ser posterior a la fecha hasta", exception.getMessage());
+        verifyNoInteractions(dailyRevenueRepository);
+    }
+
+    @Test
+    void testRecordReservations_OneDeltaPerDayBookAndUser() {
+        List<Reservation> reservations = List.of(
+                reservation(LocalDate.of(2025, 11, 14), "70.00"),
+                reservation(LocalDate.of(2025, 11, 14), "30.00"),
+                reservation(LocalDate.of(2025, 11, 15), "10.00"));
+
+        reportService.recordReservations(reservations);
+
+        List<DailyRevenue> deltas = capturedDeltas();
+        assertEquals(2, deltas.size());
+        assertEquals(2, deltas.get(0).getReservations());
+        assertEquals(new BigDecimal("100.00"), deltas.get(0).getRevenue());
+        assertEquals(LocalDate.of(2025, 11, 15), deltas.get(1).getId().getRevenueDate());
+    }
+
+    @Test
+    void testRecordReturns_CountsLateFeesOnlyForLateReturns() {
+        Reservation onTime = reservation(LocalDate.of(2025, 11, 1), "70.00");
+        onTime.setActualReturnDate(LocalDate.of(2025, 11, 8));
+        Reservation late = reservation(LocalDate.of(2025, 10, 30), "70.00");
+        late.setActualReturnDate(LocalDate.of(2025, 11, 8));
+        late.setLateFee(new BigDecimal("3.00"));
+
+        reportService.recordReturns(List.of(onTime, late));
+
+        DailyRevenue delta = capturedDeltas().get(0);
+        assertEquals(LocalDate.of(2025, 11, 8), delta.getId().getRevenueDate());
+        assertEquals(0, delta.getReservations());
+        assertEquals(2, delta.getReturns());
+        assertEquals(1, delta.getLateReturns());
+        assertEquals(new BigDecimal("3.00"), delta.getLateFees());
+    }
+
+    @Test
+    void testGroupBy_UnknownValue() {
+        assertEquals(ReportService.GroupBy.USER, ReportService.GroupBy.of("user"));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> ReportService.GroupBy.of("month"));
+        assertEquals("Agrupación no soportada: month", exception.getMessage());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DailyRevenue> capturedDeltas() {
+        ArgumentCaptor<Collection<DailyRevenue>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(dailyRevenueRepository).addAll(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private RevenueTotalsDTO totals(String key, String label, long reservations, String revenue,
+                                    long lateReturns, String lateFees) {
+        return new RevenueTotalsDTO(key, label, reservations, new BigDecimal(revenue), lateReturns,
+                lateReturns, new BigDecimal(lateFees));
+    }
+
+    private Reservation reservation(LocalDate startDate, String totalFee) {
+        User user = new User();
+        user.setId(1L);
+        Book book = new Book();
+        book.setExternalId(258027L);
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setBook(book);
+        reservation.setStartDate(startDate);
+        reservation.setExpectedReturnDate(startDate.plusDays(7));
+        reservation.setTotalFee(new BigDecimal(totalFee));
+        return reservation;
+    }
+}
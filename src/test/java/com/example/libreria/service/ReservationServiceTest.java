@@ -4,8 +4,10 @@ import com.example.libreria.dto.*;
 import com.example.libreria.model.Book;
 import com.example.libreria.model.Reservation;
 import com.example.libreria.model.User;
-import com.example.libreria.repository.BookRepository;
 import com.example.libreria.repository.ReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,18 +16,23 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,17 +41,23 @@ class ReservationServiceTest {
     @Mock
     private ReservationRepository reservationRepository;
     
-    @Mock
-    private BookRepository bookRepository;
-    
     @Mock
     private BookService bookService;
     
     @Mock
     private UserService userService;
-
+    
+    @Mock
+    private ReportService reportService;
+    
     @Mock
-    private ModelMapper modelMapper;
+    private ReadVersions readVersions;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @Spy
     @InjectMocks
@@ -52,6 +65,7 @@ class ReservationServiceTest {
     
     private User testUser;
     private Book testBook;
+    private BookResponseDTO testBookDTO;
     private Reservation testReservation;
     
     @BeforeEach
@@ -68,6 +82,11 @@ class ReservationServiceTest {
         testBook.setStockQuantity(10);
         testBook.setAvailableQuantity(5);
         
+        testBookDTO = new BookResponseDTO();
+        testBookDTO.setExternalId(258027L);
+        testBookDTO.setTitle("The Lord of the Rings");
+        testBookDTO.setPrice(new BigDecimal("15.99"));
+        
         testReservation = new Reservation();
         testReservation.setId(1L);
         testReservation.setUser(testUser);
@@ -91,20 +110,11 @@ class ReservationServiceTest {
         requestDTO.setRentalDays(10);
         requestDTO.setStartDate(LocalDate.of(2025, 11, 14));
 
-        UserResponseDTO userResponse = new UserResponseDTO();
-        userResponse.setId(testUser.getId());
-        userResponse.setName(testUser.getName());
-
-        BookResponseDTO bookResponse = new BookResponseDTO();
-        bookResponse.setExternalId(testBook.getExternalId());
-        bookResponse.setPrice(testBook.getPrice());
-        bookResponse.setAvailableQuantity(testBook.getAvailableQuantity());
-
         //when
-        when(userService.getUserById(1L)).thenReturn(userResponse);
-        when(bookService.getBookByExternalId(258027L)).thenReturn(bookResponse);
-        when(modelMapper.map(userResponse, User.class)).thenReturn(testUser);
-        when(modelMapper.map(bookResponse, Book.class)).thenReturn(testBook);
+        when(userService.getUserEntity(1L)).thenReturn(testUser);
+        when(bookService.getBookByExternalId(258027L)).thenReturn(testBookDTO);
+        when(bookService.tryDecreaseAvailableQuantity(258027L)).thenReturn(true);
+        when(bookService.getBookReference(258027L)).thenReturn(testBook);
 
         //then
         Reservation saved = new Reservation();
@@ -120,15 +130,6 @@ class ReservationServiceTest {
 
         when(reservationRepository.save(any(Reservation.class))).thenReturn(saved);
 
-        ReservationResponseDTO expectedResponse = new ReservationResponseDTO();
-        expectedResponse.setId(999L);
-        expectedResponse.setUserId(testUser.getId());
-        expectedResponse.setBookExternalId(testBook.getExternalId());
-        expectedResponse.setStartDate(requestDTO.getStartDate());
-        expectedResponse.setExpectedReturnDate(requestDTO.getStartDate().plusDays(10));
-
-        doReturn(expectedResponse).when(reservationService).convertToDTO(saved);
-
         ReservationResponseDTO result = reservationService.createReservation(requestDTO);
 
         assertNotNull(result);
@@ -137,11 +138,14 @@ class ReservationServiceTest {
         assertEquals(testBook.getExternalId(), result.getBookExternalId());
         assertEquals(requestDTO.getStartDate(), result.getStartDate());
         assertEquals(requestDTO.getStartDate().plusDays(10), result.getExpectedReturnDate());
+        assertEquals(testBookDTO.getTitle(), result.getBookTitle());
 
-        verify(userService).getUserById(1L);
+        verify(userService).getUserEntity(1L);
         verify(bookService).getBookByExternalId(258027L);
         verify(reservationRepository).save(any(Reservation.class));
-        verify(bookRepository).save(any(Book.class));
+        verify(bookService).tryDecreaseAvailableQuantity(258027L);
+        verify(reportService).recordReservations(anyList());
+        verify(readVersions).reservationsChangedAfterCommit(List.of(testUser.getId()));
     }
     
     @Test
@@ -152,18 +156,11 @@ class ReservationServiceTest {
         requestDTO.setUserId(1L);
         requestDTO.setBookExternalId(258027L);
 
-        UserResponseDTO userResponse = new UserResponseDTO();
-        userResponse.setId(testUser.getId());
-        userResponse.setName(testUser.getName());
-
-        BookResponseDTO bookResponse = new BookResponseDTO();
-        bookResponse.setExternalId(testBook.getExternalId());
-        bookResponse.setPrice(testBook.getPrice());
-        bookResponse.setAvailableQuantity(0);
-
         //when
-        when(userService.getUserById(1L)).thenReturn(userResponse);
-        when(bookService.getBookByExternalId(258027L)).thenReturn(bookResponse);
+        when(userService.getUserEntity(1L)).thenReturn(testUser);
+        when(bookService.getBookByExternalId(258027L)).thenReturn(testBookDTO);
+        // El UPDATE condicional no afecta ninguna fila
+        when(bookService.tryDecreaseAvailableQuantity(258027L)).thenReturn(false);
 
         //then
 
@@ -174,6 +171,8 @@ class ReservationServiceTest {
                 });
 
         assertEquals("El libro no está disponibke ",exception.getMessage());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+        assertEquals(1.0, meterRegistry.counter("libreria.reservations.rejected", "reason", "no_stock").count());
 
 //        assertNotNull(result);
 //        assertEquals(999L, result.getId());
@@ -206,6 +205,7 @@ class ReservationServiceTest {
 
         when(reservationRepository.findById(reservationId)).thenReturn(Optional.of(testReservation));
         when(reservationRepository.save(any(Reservation.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(bookService.tryIncreaseAvailableQuantity(258027L)).thenReturn(true);
 
         ReservationResponseDTO expectedDTO = new ReservationResponseDTO();
         expectedDTO.setId(testReservation.getId());
@@ -229,10 +229,9 @@ class ReservationServiceTest {
         assertEquals(BigDecimal.ZERO, result.getLateFee());
 
         assertEquals(Reservation.ReservationStatus.RETURNED, result.getStatus());
-        assertEquals(6, testBook.getAvailableQuantity());
         verify(reservationRepository).findById(reservationId);
         verify(reservationRepository).save(testReservation);
-        verify(bookRepository).save(testBook);
+        verify(bookService).tryIncreaseAvailableQuantity(258027L);
 
     }
     
@@ -251,6 +250,7 @@ class ReservationServiceTest {
         returnRequest.setReturnDate(LocalDate.of(2025, 11, 23));
         when(reservationRepository.findById(reservationId)).thenReturn(Optional.of(testReservation));
         when(reservationRepository.save(any(Reservation.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(bookService.tryIncreaseAvailableQuantity(258027L)).thenReturn(true);
 
         long daysLate = 3;
 
@@ -274,11 +274,61 @@ class ReservationServiceTest {
         assertEquals(testBook.getExternalId(), result.getBookExternalId());
         assertEquals(expectedLateFee, result.getLateFee());
         assertEquals(Reservation.ReservationStatus.RETURNED, result.getStatus());
-        assertEquals(6, testBook.getAvailableQuantity());
 
         verify(reservationRepository).findById(reservationId);
         verify(reservationRepository).save(testReservation);
-        verify(bookRepository).save(testBook);
+        verify(bookService).tryIncreaseAvailableQuantity(258027L);
+        verify(reportService).recordReturns(List.of(testReservation));
+    }
+    
+    @Test
+    void testReturnBook_MarkedOverdueIsAccepted() {
+        testReservation.setStatus(Reservation.ReservationStatus.OVERDUE);
+        testReservation.setExpectedReturnDate(LocalDate.of(2025, 11, 20));
+        ReturnBookRequestDTO returnRequest = new ReturnBookRequestDTO();
+        returnRequest.setReturnDate(LocalDate.of(2025, 11, 22));
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(testReservation));
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(bookService.tryIncreaseAvailableQuantity(258027L)).thenReturn(true);
+        
+        ReservationResponseDTO result = reservationService.returnBook(1L, returnRequest);
+        
+        assertEquals(Reservation.ReservationStatus.RETURNED, result.getStatus());
+        assertEquals(new BigDecimal("4.80"), result.getLateFee());
+        assertEquals(4.80, meterRegistry.summary("libreria.reservations.late_fee").totalAmount(), 0.001);
+    }
+    
+    @Test
+    void testReturnBook_AlreadyReturned() {
+        testReservation.setStatus(Reservation.ReservationStatus.RETURNED);
+        ReturnBookRequestDTO returnRequest = new ReturnBookRequestDTO();
+        returnRequest.setReturnDate(LocalDate.now());
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(testReservation));
+        
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reservationService.returnBook(1L, returnRequest));
+        
+        assertEquals("La reserva ya fue devuelta", exception.getMessage());
+        verify(bookService, never()).tryIncreaseAvailableQuantity(anyLong());
+    }
+    
+    @Test
+    void testMarkOverdueBatch() {
+        LocalDate today = LocalDate.of(2025, 12, 1);
+        when(reservationRepository.findOverdueCandidateIds(today, Limit.of(100))).thenReturn(List.of(1L, 2L));
+        when(reservationRepository.markOverdue(List.of(1L, 2L))).thenReturn(2);
+        
+        assertEquals(2, reservationService.markOverdueBatch(today, 100));
+        verify(readVersions).allReservationsChangedAfterCommit();
+    }
+    
+    @Test
+    void testMarkOverdueBatch_NothingToMark() {
+        LocalDate today = LocalDate.of(2025, 12, 1);
+        when(reservationRepository.findOverdueCandidateIds(today, Limit.of(100))).thenReturn(List.of());
+        
+        assertEquals(0, reservationService.markOverdueBatch(today, 100));
+        verify(reservationRepository, never()).markOverdue(any());
     }
     
     @Test
@@ -305,33 +355,209 @@ class ReservationServiceTest {
         reservation2.setStatus(Reservation.ReservationStatus.ACTIVE);
         reservation2.setCreatedAt(LocalDateTime.now());
         
-        when(reservationRepository.findAll()).thenReturn(Arrays.asList(testReservation, reservation2));
+        List<ReservationResponseDTO> rows = Arrays.asList(
+                reservationService.convertToDTO(testReservation), reservationService.convertToDTO(reservation2));
+        when(reservationRepository.findResponsesAfter(0L, Limit.of(2))).thenReturn(rows);
         
-        List<ReservationResponseDTO> result = reservationService.getAllReservations();
+        CursorPageDTO<ReservationResponseDTO> result = reservationService.getAllReservations(null, 1);
         
         assertNotNull(result);
-        assertEquals(2, result.size());
+        assertEquals(1, result.getItems().size());
+        assertEquals(testReservation.getId(), result.getNext());
     }
     
     @Test
     void testGetReservationsByUserId() {
-        when(reservationRepository.findByUserId(1L)).thenReturn(Arrays.asList(testReservation));
+        List<ReservationResponseDTO> rows = Arrays.asList(reservationService.convertToDTO(testReservation));
+        when(reservationRepository.findResponsesByUserIdAfter(1L, 0L, Limit.of(51))).thenReturn(rows);
         
-        List<ReservationResponseDTO> result = reservationService.getReservationsByUserId(1L);
+        CursorPageDTO<ReservationResponseDTO> result = reservationService.getReservationsByUserId(1L, null, 50);
         
         assertNotNull(result);
-        assertEquals(1, result.size());
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNext());
     }
     
     @Test
     void testGetActiveReservations() {
-        when(reservationRepository.findByStatus(Reservation.ReservationStatus.ACTIVE))
-                .thenReturn(Arrays.asList(testReservation));
+        List<ReservationResponseDTO> rows = Arrays.asList(reservationService.convertToDTO(testReservation));
+        when(reservationRepository.findResponsesByStatusAfter(
+                Reservation.ReservationStatus.ACTIVE, 0L, Limit.of(51))).thenReturn(rows);
         
-        List<ReservationResponseDTO> result = reservationService.getActiveReservations();
+        CursorPageDTO<ReservationResponseDTO> result = reservationService.getActiveReservations(null, 50);
         
         assertNotNull(result);
-        assertEquals(1, result.size());
+        assertEquals(1, result.getItems().size());
+    }
+    
+    @Test
+    void testGetOverdueReservations_ReadsByStatus() {
+        testReservation.setStatus(Reservation.ReservationStatus.OVERDUE);
+        List<ReservationResponseDTO> rows = Arrays.asList(reservationService.convertToDTO(testReservation));
+        when(reservationRepository.findResponsesByStatusAfter(
+                Reservation.ReservationStatus.OVERDUE, 0L, Limit.of(51))).thenReturn(rows);
+        
+        CursorPageDTO<ReservationResponseDTO> result = reservationService.getOverdueReservations(null, 50);
+        
+        assertEquals(1, result.getItems().size());
+        assertEquals(Reservation.ReservationStatus.OVERDUE, result.getItems().get(0).getStatus());
+    }
+    
+    @Test
+    void testCreateReservations_ReportsEachItemWithoutFailingTheBatch() {
+        LocalDate start = LocalDate.of(2025, 11, 14);
+        List<ReservationRequestDTO> requests = Arrays.asList(
+                new ReservationRequestDTO(1L, 258027L, 7, start),
+                new ReservationRequestDTO(1L, 258027L, null, start),
+                new ReservationRequestDTO(99L, 258027L, 7, start),
+                new ReservationRequestDTO(1L, 404L, 7, start),
+                new ReservationRequestDTO(1L, 258027L, 3, start),
+                new ReservationRequestDTO(1L, 258027L, 5, start));
+        when(userService.getUserEntities(Set.of(1L, 99L))).thenReturn(Map.of(1L, testUser));
+        when(bookService.getBooksByExternalIds(Set.of(258027L, 404L))).thenReturn(Map.of(258027L, testBook));
+        when(bookService.tryDecreaseAvailableQuantities(Map.of(258027L, 3))).thenReturn(Map.of(258027L, 2));
+        doAnswer(inv -> {
+            List<Reservation> reservations = inv.getArgument(0);
+            for (int i = 0; i < reservations.size(); i++) {
+                reservations.get(i).setId(100L + i);
+            }
+            return null;
+        }).when(reservationRepository).insertAll(anyList());
+        
+        BatchResultDTO<ReservationResponseDTO> result = reservationService.createReservations(requests);
+        
+        assertEquals(2, result.getSucceeded());
+        assertEquals(4, result.getFailed());
+        List<BatchItemResultDTO<ReservationResponseDTO>> items = result.getItems();
+        assertEquals(100L, items.get(0).getResult().getId());
+        assertEquals(new BigDecimal("111.93"), items.get(0).getResult().getTotalFee());
+        assertEquals("Los días de alquiler son obligatorios", items.get(1).getError());
+        assertEquals("Usuario no encontrado con ID: 99", items.get(2).getError());
+        assertEquals("Libro no encontrado con ID externo: 404", items.get(3).getError());
+        assertEquals(101L, items.get(4).getResult().getId());
+        // Solo quedaban dos ejemplares: el tercer pedido del mismo libro se rechaza
+        assertFalse(items.get(5).isSuccess());
+        assertEquals("El libro no está disponible", items.get(5).getError());
+        assertEquals(5, items.get(5).getIndex());
+        assertEquals(2, meterRegistry.counter("libreria.reservations.created").count());
+        assertEquals(1, meterRegistry.counter("libreria.reservations.rejected", "reason", "no_stock").count());
+        verify(reportService).recordReservations(argThat(reservations -> reservations.size() == 2));
+    }
+    
+    @Test
+    void testCreateReservations_NoCopiesLeft_RejectsThatBook() {
+        LocalDate start = LocalDate.of(2025, 11, 14);
+        List<ReservationRequestDTO> requests = List.of(
+                new ReservationRequestDTO(1L, 258027L, 7, start),
+                new ReservationRequestDTO(1L, 258027L, 7, start));
+        when(userService.getUserEntities(Set.of(1L))).thenReturn(Map.of(1L, testUser));
+        when(bookService.getBooksByExternalIds(Set.of(258027L))).thenReturn(Map.of(258027L, testBook));
+        when(bookService.tryDecreaseAvailableQuantities(Map.of(258027L, 2))).thenReturn(Map.of());
+        
+        BatchResultDTO<ReservationResponseDTO> result = reservationService.createReservations(requests);
+        
+        assertEquals(0, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        verify(reservationRepository).insertAll(List.of());
+    }
+    
+    @Test
+    void testCreateReservations_RequestsOneCopyPerItemAndGrantsWhatBookServiceDecreased() {
+        LocalDate start = LocalDate.of(2025, 11, 14);
+        List<ReservationRequestDTO> requests = List.of(
+                new ReservationRequestDTO(1L, 258027L, 7, start),
+                new ReservationRequestDTO(1L, 258027L, 7, start));
+        // La fila leída dice 5, pero al descontar solo quedaba un ejemplar
+        when(userService.getUserEntities(Set.of(1L))).thenReturn(Map.of(1L, testUser));
+        when(bookService.getBooksByExternalIds(Set.of(258027L))).thenReturn(Map.of(258027L, testBook));
+        when(bookService.tryDecreaseAvailableQuantities(Map.of(258027L, 2))).thenReturn(Map.of(258027L, 1));
+        
+        BatchResultDTO<ReservationResponseDTO> result = reservationService.createReservations(requests);
+        
+        assertEquals(1, result.getSucceeded());
+        assertEquals("El libro no está disponible", result.getItems().get(1).getError());
+    }
+    
+    @Test
+    void testCreateReservations_TooManyItems() {
+        List<ReservationRequestDTO> requests = Collections.nCopies(1001,
+                new ReservationRequestDTO(1L, 258027L, 7, LocalDate.now()));
+        
+        assertThrows(IllegalArgumentException.class, () -> reservationService.createReservations(requests));
+        verifyNoInteractions(userService, bookService, reservationRepository);
+    }
+    
+    @Test
+    void testReturnBooks_ReportsEachItemWithoutFailingTheBatch() {
+        Reservation late = reservation(10L, LocalDate.of(2025, 11, 20), Reservation.ReservationStatus.OVERDUE);
+        Reservation onTime = reservation(11L, LocalDate.of(2025, 11, 20), Reservation.ReservationStatus.ACTIVE);
+        Reservation returned = reservation(12L, LocalDate.of(2025, 11, 20), Reservation.ReservationStatus.RETURNED);
+        List<ReservationReturnDTO> returns = Arrays.asList(
+                new ReservationReturnDTO(10L, LocalDate.of(2025, 11, 22)),
+                new ReservationReturnDTO(11L, null),
+                new ReservationReturnDTO(11L, LocalDate.of(2025, 11, 18)),
+                new ReservationReturnDTO(99L, LocalDate.of(2025, 11, 18)),
+                new ReservationReturnDTO(12L, LocalDate.of(2025, 11, 18)),
+                new ReservationReturnDTO(10L, LocalDate.of(2025, 11, 22)));
+        when(reservationRepository.findWithUserAndBookByIdIn(Set.of(10L, 11L, 99L, 12L)))
+                .thenReturn(List.of(late, onTime, returned));
+        when(bookService.tryIncreaseAvailableQuantities(Map.of(258027L, 2))).thenReturn(Set.of(258027L));
+        
+        BatchResultDTO<ReservationResponseDTO> result = reservationService.returnBooks(returns);
+        
+        assertEquals(2, result.getSucceeded());
+        assertEquals(4, result.getFailed());
+        List<BatchItemResultDTO<ReservationResponseDTO>> items = result.getItems();
+        assertEquals(Reservation.ReservationStatus.RETURNED, items.get(0).getResult().getStatus());
+        assertEquals(new BigDecimal("4.80"), items.get(0).getResult().getLateFee());
+        assertEquals("La fecha de devolución es obligatoria", items.get(1).getError());
+        assertEquals(LocalDate.of(2025, 11, 18), items.get(2).getResult().getActualReturnDate());
+        assertEquals(BigDecimal.ZERO, onTime.getLateFee());
+        assertEquals("Reserva no encontrada con ID: 99", items.get(3).getError());
+        assertEquals("La reserva ya fue devuelta", items.get(4).getError());
+        // La misma reserva repetida en el lote solo se devuelve una vez
+        assertEquals("La reserva ya fue devuelta", items.get(5).getError());
+        assertEquals(4.80, meterRegistry.summary("libreria.reservations.late_fee").totalAmount(), 0.001);
+        verify(reservationRepository, never()).save(any());
+        verify(reportService).recordReturns(List.of(late, onTime));
+        verify(readVersions).reservationsChangedAfterCommit(Set.of(testUser.getId()));
+    }
+    
+    @Test
+    void testReturnBooks_StockAlreadyFull_RejectsThatBook() {
+        Reservation reservation = reservation(10L, LocalDate.of(2025, 11, 20), Reservation.ReservationStatus.ACTIVE);
+        when(reservationRepository.findWithUserAndBookByIdIn(Set.of(10L))).thenReturn(List.of(reservation));
+        when(bookService.tryIncreaseAvailableQuantities(Map.of(258027L, 1))).thenReturn(Set.of());
+        
+        BatchResultDTO<ReservationResponseDTO> result = reservationService.returnBooks(
+                List.of(new ReservationReturnDTO(10L, LocalDate.of(2025, 11, 18))));
+        
+        assertEquals(0, result.getSucceeded());
+        assertEquals("La cantidad disponible no puede exceder el stock", result.getItems().get(0).getError());
+        assertEquals(Reservation.ReservationStatus.ACTIVE, reservation.getStatus());
+    }
+    
+    @Test
+    void testReturnBooks_TooManyItems() {
+        List<ReservationReturnDTO> returns = Collections.nCopies(1001,
+                new ReservationReturnDTO(1L, LocalDate.now()));
+        
+        assertThrows(IllegalArgumentException.class, () -> reservationService.returnBooks(returns));
+        verifyNoInteractions(bookService, reservationRepository);
+    }
+    
+    private Reservation reservation(Long id, LocalDate expectedReturnDate, Reservation.ReservationStatus status) {
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setUser(testUser);
+        reservation.setBook(testBook);
+        reservation.setRentalDays(7);
+        reservation.setStartDate(expectedReturnDate.minusDays(7));
+        reservation.setExpectedReturnDate(expectedReturnDate);
+        reservation.setDailyRate(testBook.getPrice());
+        reservation.setTotalFee(testBook.getPrice().multiply(BigDecimal.valueOf(7)));
+        reservation.setLateFee(BigDecimal.ZERO);
+        reservation.setStatus(status);
+        return reservation;
     }
 }
-
@@ -0,0 +1,57 @@
+package com.example.libreria.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionHooksTest {
+
+    private final List<String> ran = new ArrayList<>();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testWithoutTransaction_AfterCommitRunsNowAndRollbackNever() {
+        TransactionHooks.afterCommit(() -> ran.add("commit"));
+        TransactionHooks.afterRollback(() -> ran.add("rollback"));
+
+        assertEquals(List.of("commit"), ran);
+    }
+
+    @Test
+    void testCommittedTransaction_RunsOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionHooks.afterCommit(() -> ran.add("commit"));
+        TransactionHooks.afterRollback(() -> ran.add("rollback"));
+        assertTrue(ran.isEmpty());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertEquals(List.of("commit"), ran);
+    }
+
+    @Test
+    void testRolledBackTransaction_RunsOnlyTheUndo() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionHooks.afterCommit(() -> ran.add("commit"));
+        TransactionHooks.afterRollback(() -> ran.add("rollback"));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(List.of("rollback"), ran);
+    }
+}
@@ -1,23 +1,39 @@
 package com.example.libreria.service;
 
+import com.example.libreria.dto.BatchItemResultDTO;
+import com.example.libreria.dto.BatchResultDTO;
+import com.example.libreria.dto.CursorPageDTO;
 import com.example.libreria.dto.UserRequestDTO;
 import com.example.libreria.dto.UserResponseDTO;
 import com.example.libreria.model.User;
 import com.example.libreria.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +43,18 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
     
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private ReadVersions readVersions;
+    
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    
     @InjectMocks
     private UserService userService;
     
@@ -100,12 +128,14 @@ class UserServiceTest {
         user2.setName("María García");
         user2.setEmail("maria@example.com");
         
-        when(userRepository.findAll()).thenReturn(Arrays.asList(testUser, user2));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(51)))
+                .thenReturn(Arrays.asList(testUser, user2));
         
-        List<UserResponseDTO> result = userService.getAllUsers();
+        CursorPageDTO<UserResponseDTO> result = userService.getAllUsers(null, 50);
         
         assertNotNull(result);
-        assertEquals(2, result.size());
+        assertEquals(2, result.getItems().size());
+        assertNull(result.getNext());
     }
     
     @Test
@@ -127,6 +157,7 @@ class UserServiceTest {
         userService.deleteUser(1L);
         
         verify(userRepository, times(1)).deleteById(1L);
+        verify(readVersions).reservationsChangedAfterCommit(List.of(1L));
     }
     
     @Test
@@ -139,5 +170,112 @@ class UserServiceTest {
         
         verify(userRepository, never()).deleteById(anyLong());
     }
+    
+    @Test
+    void testCreateUsers_DeduplicatesAndChecksExistingEmailsOnce() {
+        List<UserRequestDTO> requests = List.of(
+                new UserRequestDTO("Ana", "ana@example.com", null),
+                new UserRequestDTO("Sin email", null, null),
+                new UserRequestDTO("Ana otra vez", "ana@example.com", null),
+                new UserRequestDTO("Juan", "juan@example.com", "123456789"),
+                new UserRequestDTO("Eva", "eva@example.com", null));
+        runTransactionsInline();
+        when(userRepository.findExistingEmails(Set.of("ana@example.com", "juan@example.com", "eva@example.com")))
+                .thenReturn(Set.of("juan@example.com"));
+        assignIdsOnInsert();
+        
+        BatchResultDTO<UserResponseDTO> result = userService.createUsers(requests);
+        
+        assertEquals(2, result.getSucceeded());
+        assertEquals(3, result.getFailed());
+        List<BatchItemResultDTO<UserResponseDTO>> items = result.getItems();
+        assertEquals(100L, items.get(0).getResult().getId());
+        assertEquals("El email es obligatorio", items.get(1).getError());
+        assertEquals("Email repetido en el lote: ana@example.com", items.get(2).getError());
+        assertEquals("Ya existe un usuario con el email: juan@example.com", items.get(3).getError());
+        assertEquals(101L, items.get(4).getResult().getId());
+        assertEquals("eva@example.com", items.get(4).getResult().getEmail());
+        verify(userRepository, times(1)).findExistingEmails(any());
+        verify(userRepository, times(1)).insertAll(anyList());
+        verify(userRepository, never()).save(any(User.class));
+    }
+    
+    @Test
+    void testCreateUsers_EmailTakenConcurrently_RetriesTheRest() {
+        List<UserRequestDTO> requests = List.of(
+                new UserRequestDTO("Ana", "ana@example.com", null),
+                new UserRequestDTO("Eva", "eva@example.com", null));
+        runTransactionsInline();
+        when(userRepository.findExistingEmails(any()))
+                .thenReturn(Set.of())
+                .thenReturn(Set.of("ana@example.com"));
+        doThrow(new DuplicateKeyException("users.email"))
+                .doAnswer(inv -> {
+                    List<User> users = inv.getArgument(0);
+                    assertEquals(1, users.size());
+                    users.get(0).setId(7L);
+                    return null;
+                })
+                .when(userRepository).insertAll(anyList());
+        
+        BatchResultDTO<UserResponseDTO> result = userService.createUsers(requests);
+        
+        assertEquals("Ya existe un usuario con el email: ana@example.com", result.getItems().get(0).getError());
+        assertEquals(7L, result.getItems().get(1).getResult().getId());
+        verify(userRepository, times(2)).insertAll(anyList());
+    }
+    
+    @Test
+    void testCreateUsers_OverMaxSize() {
+        List<UserRequestDTO> requests = Collections.nCopies(10_001, userRequestDTO);
+        
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.createUsers(requests));
+        
+        assertEquals("El lote supera el máximo de 10000 usuarios", exception.getMessage());
+        verifyNoInteractions(userRepository);
+    }
+    
+    @Test
+    void testImportUsers_ReadsNdjsonLineByLine() {
+        String ndjson = """
+                {"name":"Ana","email":"ana@example.com"}
+                
+                {"name":"Roto",
+                {"name":"Eva","email":"no-es-un-email"}
+                {"name":"Juan","email":"juan@example.com","phoneNumber":"123456789"}
+                """;
+        runTransactionsInline();
+        when(userRepository.findExistingEmails(Set.of("ana@example.com", "juan@example.com"))).thenReturn(Set.of());
+        assignIdsOnInsert();
+        
+        BatchResultDTO<UserResponseDTO> result = userService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        
+        List<BatchItemResultDTO<UserResponseDTO>> items = result.getItems();
+        assertEquals(4, items.size());
+        assertEquals(100L, items.get(0).getResult().getId());
+        assertTrue(items.get(1).getError().startsWith("JSON inválido"));
+        assertEquals("El email debe ser válido", items.get(2).getError());
+        assertEquals(101L, items.get(3).getResult().getId());
+        assertEquals(3, items.get(3).getIndex());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(inv -> {
+            ((Consumer<Object>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+    
+    private void assignIdsOnInsert() {
+        doAnswer(inv -> {
+            List<User> users = inv.getArgument(0);
+            for (int i = 0; i < users.size(); i++) {
+                users.get(i).setId(100L + i);
+            }
+            return null;
+        }).when(userRepository).insertAll(anyList());
+    }
 }
-